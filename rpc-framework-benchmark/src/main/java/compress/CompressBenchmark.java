@@ -0,0 +1,84 @@
+package compress;
+
+import enums.SerializationTypeEnum;
+import extension.ExtensionLoader;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import remoting.dto.Payloads;
+import serialize.Serializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各压缩实现压缩、解压序列化后的请求/响应消息体的吞吐量和压缩率。
+ * 除了每秒的操作数，压缩时还输出每秒读入的原始字节数 rawBytes 和写出的压缩后字节数 compressedBytes，
+ * 两者之比就是压缩率
+ * @author Chen
+ * @create 2026-10-18 11:40
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressBenchmark {
+
+    @Param({"gzip", "deflate", "lz4", "zstd"})
+    private String compress;
+
+    @Param({"request", "response"})
+    private String message;
+
+    @Param({"1024", "16384"})
+    private int size;
+
+    private Compress compressor;
+    private byte[] body;
+    private byte[] compressed;
+
+    @Setup
+    public void setup() {
+        compressor = ExtensionLoader.getExtensionLoader(Compress.class).getExtension(compress);
+        Serializer serializer = ExtensionLoader.getExtensionLoader(Serializer.class).getExtension(SerializationTypeEnum.PROTOSTUFF.getName());
+        body = serializer.serialize("request".equals(message) ? Payloads.request(size) : Payloads.response(size));
+        compressed = compressor.compress(body);
+    }
+
+    @Benchmark
+    public byte[] compress(Bytes bytes) {
+        byte[] result = compressor.compress(body);
+        bytes.rawBytes += body.length;
+        bytes.compressedBytes += result.length;
+        return result;
+    }
+
+    @Benchmark
+    public byte[] decompress() {
+        return compressor.decompress(compressed);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+        public long rawBytes;
+        public long compressedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rawBytes = 0;
+            compressedBytes = 0;
+        }
+    }
+}
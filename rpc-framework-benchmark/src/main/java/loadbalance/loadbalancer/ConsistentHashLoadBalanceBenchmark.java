@@ -0,0 +1,63 @@
+package loadbalance.loadbalancer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import registry.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一致性哈希环上选择一个地址的开销，随节点数和虚节点数的变化。
+ * 倾斜程度和节点下线时的迁移量见单元测试 ConsistentHashLoadBalanceTest
+ * @author Chen
+ * @create 2026-10-18 10:20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConsistentHashLoadBalanceBenchmark {
+
+    private static final int KEYS = 1024;
+
+    @Param({"10", "100"})
+    private int nodes;
+
+    @Param({"160"})
+    private int replicas;
+
+    private ConsistentHashLoadBalance.ConsistentHashSelector selector;
+    private String[] keys;
+    private int next;
+
+    @Setup
+    public void setup() {
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            instances.add(ServiceInstance.builder().address("192.168." + i / 256 + "." + i % 256 + ":9998").build());
+        }
+        selector = new ConsistentHashLoadBalance.ConsistentHashSelector(instances, replicas);
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "key-" + i;
+        }
+    }
+
+    @Benchmark
+    public ServiceInstance select() {
+        return selector.select(keys[next++ & (KEYS - 1)]);
+    }
+}
@@ -0,0 +1,64 @@
+package provider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务端调用服务方法的开销：{@link ServiceMethod} 发布时构建的 MethodHandle，
+ * 与原来每次请求 getMethod 查找再 Method.invoke 的方式，以及缓存了 Method 的 Method.invoke 对比
+ * @author Chen
+ * @create 2026-10-18 12:40
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceMethodBenchmark {
+
+    public static class HelloService {
+        public String hello(String message, Integer count) {
+            return message.length() + count > 0 ? message : null;
+        }
+    }
+
+    private final Object service = new HelloService();
+    private final String methodName = "hello";
+    private final Class<?>[] paramTypes = {String.class, Integer.class};
+    private final Object[] parameters = {"hello", 7};
+    private Method method;
+    private ServiceMethod serviceMethod;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        method = service.getClass().getMethod(methodName, paramTypes);
+        serviceMethod = new ServiceMethod(1, "HelloService", service, method);
+    }
+
+    @Benchmark
+    public Object methodHandle() {
+        return serviceMethod.invoke(parameters);
+    }
+
+    @Benchmark
+    public Object lookupAndReflect() throws Exception {
+        return service.getClass().getMethod(methodName, paramTypes).invoke(service, parameters);
+    }
+
+    @Benchmark
+    public Object cachedReflect() throws Exception {
+        return method.invoke(service, parameters);
+    }
+}
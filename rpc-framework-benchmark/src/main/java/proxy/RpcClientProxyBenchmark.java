@@ -0,0 +1,61 @@
+package proxy;
+
+import entity.RpcServiceProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import remoting.dto.RpcResponse;
+import remoting.transport.RpcRequestTransport;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端代理本身的开销：字节码生成的 stub 与 JDK 动态代理从调用接口方法到交给传输层、再取出结果的时间。
+ * 传输层立即返回成功的响应，不经过网络，结果中只有代理、构造请求和检查响应的开销
+ * @author Chen
+ * @create 2026-10-18 13:00
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RpcClientProxyBenchmark {
+
+    public interface EchoService {
+        String echo(String message);
+    }
+
+    private EchoService jdk;
+    private EchoService stub;
+
+    @Setup
+    public void setup() {
+        CompletableFuture<RpcResponse<Object>> response = CompletableFuture.completedFuture(RpcResponse.success("pong", null));
+        // 不连接服务端，直接以成功结束每个请求
+        RpcRequestTransport rpcRequestTransport = rpcRequest -> response;
+        RpcClientProxy rpcClientProxy = new RpcClientProxy(rpcRequestTransport, RpcServiceProperties.builder().group("").version("").build(),
+                null, true);
+        jdk = rpcClientProxy.getProxy(EchoService.class, RpcClientProxy.PROXY_JDK);
+        stub = rpcClientProxy.getProxy(EchoService.class, RpcClientProxy.PROXY_BYTEBUDDY);
+    }
+
+    @Benchmark
+    public String jdkProxy() {
+        return jdk.echo("ping");
+    }
+
+    @Benchmark
+    public String stub() {
+        return stub.echo("ping");
+    }
+}
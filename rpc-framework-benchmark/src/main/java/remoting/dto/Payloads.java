@@ -0,0 +1,50 @@
+package remoting.dto;
+
+import java.util.Random;
+
+/**
+ * 性能测试使用的请求、响应。参数和返回值是由常见单词拼成的文本，压缩率接近业务中的字符串和 JSON 字段，
+ * 同样的 size 每次生成相同的内容，不同测试之间的结果可以比较
+ * @author Chen
+ * @create 2026-10-18 10:40
+ */
+public final class Payloads {
+
+    private static final String[] WORDS = {"order", "user", "id", "name", "status", "created", "amount", "price",
+            "true", "false", "null", "shanghai", "beijing", "2026-10-18", "item", "count", "sku", "address"};
+
+    private Payloads() {
+    }
+
+    /**
+     * @param size 文本参数的长度（字符），消息体的大小大致相同
+     */
+    public static RpcRequest request(int size) {
+        return RpcRequest.builder()
+                .interfaceName("github.javaguide.HelloService")
+                .methodName("hello")
+                .parameters(new Object[]{text(size), 7})
+                .paramTypes(new Class<?>[]{String.class, Integer.class})
+                .version("1")
+                .group("benchmark")
+                .timeout(1500)
+                .build();
+    }
+
+    /**
+     * @param size 文本返回值的长度（字符）
+     */
+    public static RpcResponse<Object> response(int size) {
+        return RpcResponse.success(text(size), null);
+    }
+
+    public static String text(int size) {
+        Random random = new Random(size);
+        StringBuilder text = new StringBuilder(size + 16);
+        while (text.length() < size) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextBoolean() ? ':' : ',').append(random.nextInt(1000));
+        }
+        text.setLength(size);
+        return text.toString();
+    }
+}
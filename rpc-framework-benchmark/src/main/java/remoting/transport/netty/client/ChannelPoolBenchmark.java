@@ -0,0 +1,158 @@
+package remoting.transport.netty.client;
+
+import entity.RpcServiceProperties;
+import factory.SingletonFactory;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import provider.ServiceProviderImpl;
+import remoting.constants.RpcConstants;
+import remoting.dto.Payloads;
+import remoting.dto.RpcMessage;
+import remoting.dto.RpcRequest;
+import remoting.dto.RpcResponse;
+import remoting.transport.netty.NettyTransport;
+import remoting.transport.netty.client.codec.CodecRegistry;
+import remoting.transport.netty.client.codec.RpcMessageDecoder;
+import remoting.transport.netty.client.codec.RpcMessageEncoder;
+import remoting.transport.netty.server.NettyRpcServerHandler;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 同一个服务端的连接数对吞吐量的影响：本机回环地址上启动服务端，客户端与服务端都使用框架的编解码器和 handler，
+ * 客户端建立 connections 个连接放入 {@link ChannelPool}，多个线程同时发送请求，每个请求按轮询选择连接。
+ * 连接数只有在 CPU 核数足够时才能提高吞吐量，单核机器上的结果没有参考意义。
+ * rpc.client.connections 从 rpc.properties 读取，整个进程只有一个值，所以这里直接建立连接，不经过 {@link ChannelProvider}。
+ * 每条消息的 INFO 日志会远远超过编解码的开销，所以日志级别设为 warn
+ * @author Chen
+ * @create 2026-10-18 13:30
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+@Threads(32)
+public class ChannelPoolBenchmark {
+
+    public interface EchoService {
+        String echo(String message);
+    }
+
+    public static class EchoServiceImpl implements EchoService {
+        @Override
+        public String echo(String message) {
+            return message;
+        }
+    }
+
+    private static final AtomicLong REQUEST_ID = new AtomicLong();
+
+    @Param({"1", "2", "4"})
+    private int connections;
+
+    @Param({"1024"})
+    private int size;
+
+    private EventLoopGroup serverGroup;
+    private EventLoopGroup clientGroup;
+    private NettyRpcClient nettyRpcClient;
+    private UnprocessedRequests unprocessedRequests;
+    private ChannelPool channelPool;
+    private RpcRequest rpcRequest;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        RpcServiceProperties rpcServiceProperties = RpcServiceProperties.builder().serviceName(EchoService.class.getName())
+                .group("benchmark").version("1").build();
+        // 只在本地登记服务，不发布到注册中心
+        SingletonFactory.getInstance(ServiceProviderImpl.class).addService(new EchoServiceImpl(), EchoService.class, rpcServiceProperties);
+        serverGroup = NettyTransport.newEventLoopGroup(0);
+        Channel server = new ServerBootstrap().group(serverGroup)
+                .channel(NettyTransport.serverChannelClass())
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ChannelPipeline p = ch.pipeline();
+                        NettyTransport.addFlushHandlers(p);
+                        p.addLast(new RpcMessageEncoder());
+                        p.addLast(new RpcMessageDecoder());
+                        p.addLast(new NettyRpcServerHandler());
+                    }
+                })
+                .bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+
+        nettyRpcClient = new NettyRpcClient();
+        unprocessedRequests = SingletonFactory.getInstance(UnprocessedRequests.class);
+        clientGroup = NettyTransport.newEventLoopGroup(0);
+        Bootstrap bootstrap = new Bootstrap().group(clientGroup)
+                .channel(NettyTransport.channelClass())
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ChannelPipeline p = ch.pipeline();
+                        NettyTransport.addFlushHandlers(p);
+                        p.addLast(new RpcMessageEncoder());
+                        p.addLast(new RpcMessageDecoder());
+                        p.addLast(new NettyRpcClientHandler(nettyRpcClient));
+                    }
+                });
+        NettyTransport.applyClientOptions(bootstrap);
+        channelPool = new ChannelPool(connections);
+        for (int i = 0; i < connections; i++) {
+            channelPool.set(i, bootstrap.connect(server.localAddress()).sync().channel());
+        }
+        rpcRequest = Payloads.request(size);
+        rpcRequest.setInterfaceName(EchoService.class.getName());
+        rpcRequest.setMethodName("echo");
+        rpcRequest.setParameters(new Object[]{Payloads.text(size)});
+        rpcRequest.setParamTypes(new Class<?>[]{String.class});
+        rpcRequest.setTimeout(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        nettyRpcClient.close();
+        clientGroup.shutdownGracefully();
+        serverGroup.shutdownGracefully();
+    }
+
+    @Benchmark
+    public Object echo() throws Exception {
+        Channel channel = channelPool.get(channelPool.nextSlot());
+        long requestId = REQUEST_ID.incrementAndGet();
+        CompletableFuture<RpcResponse<Object>> responseFuture = new CompletableFuture<>();
+        unprocessedRequests.put(requestId, responseFuture, channel, 0);
+        RpcMessage rpcMessage = new RpcMessage();
+        rpcMessage.setVersion(RpcConstants.VERSION);
+        rpcMessage.setRequestId(requestId);
+        rpcMessage.setData(rpcRequest);
+        rpcMessage.setCodec(CodecRegistry.getDefaultSerializer());
+        rpcMessage.setCompress(CodecRegistry.getDefaultCompress());
+        rpcMessage.setMessageType(RpcConstants.REQUEST_TYPE);
+        channel.writeAndFlush(rpcMessage);
+        return responseFuture.get(5, TimeUnit.SECONDS).getData();
+    }
+}
@@ -0,0 +1,51 @@
+package remoting.transport.netty.client.codec;
+
+import compress.Compress;
+import enums.CompressTypeEnum;
+import enums.SerializationTypeEnum;
+import extension.ExtensionLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import serialize.Serializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 编解码每一帧按 header 中的 codec/compress 字节取序列化器和压缩器的开销：
+ * {@link CodecRegistry} 的数组下标访问，与按枚举线性查找名字、再经 {@link ExtensionLoader} 取扩展实例的原有方式对比。
+ * 原有方式每帧还会打一条 INFO 日志，这里没有计入
+ * @author Chen
+ * @create 2026-10-18 11:20
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecRegistryBenchmark {
+
+    // 放在字段中，JIT 不能把 header 字节当作常量折叠掉
+    private byte codec = SerializationTypeEnum.PROTOSTUFF.getCode();
+    private byte compress = CompressTypeEnum.ZSTD.getCode();
+
+    @Benchmark
+    public void codecRegistry(Blackhole blackhole) {
+        blackhole.consume(CodecRegistry.getSerializer(codec));
+        blackhole.consume(CodecRegistry.getCompress(compress));
+    }
+
+    @Benchmark
+    public void extensionLoader(Blackhole blackhole) {
+        blackhole.consume(ExtensionLoader.getExtensionLoader(Serializer.class).getExtension(SerializationTypeEnum.getName(codec)));
+        blackhole.consume(ExtensionLoader.getExtensionLoader(Compress.class).getExtension(CompressTypeEnum.getName(compress)));
+    }
+}
@@ -0,0 +1,144 @@
+package remoting.transport.netty.client.codec;
+
+import compress.Compress;
+import enums.CompressTypeEnum;
+import enums.SerializationTypeEnum;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import remoting.constants.RpcConstants;
+import remoting.dto.Payloads;
+import remoting.dto.RpcMessage;
+import remoting.dto.RpcRequest;
+import serialize.Serializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 编解码一条请求的开销：编解码器直接在 ByteBuf 上序列化、压缩的流式路径，
+ * 与先序列化成 byte[]、再压缩成 byte[]、最后拷贝进 ByteBuf 的 byte[] 路径（*ByteArray）对比。
+ * 每次调用分配的字节数用 gc profiler 查看 gc.alloc.rate.norm：
+ * java -jar benchmarks.jar RpcMessageCodecBenchmark -prof gc
+ * @author Chen
+ * @create 2026-10-18 10:50
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RpcMessageCodecBenchmark {
+
+    private static final int COMPRESS_THRESHOLD = 1024;
+    // header 中压缩类型的位置：4B magic + 1B version + 4B full length + 1B messageType + 1B codec
+    private static final int COMPRESS_INDEX = 11;
+
+    @Param({"128", "4096"})
+    private int size;
+
+    @Param({"none", "lz4"})
+    private String compress;
+
+    private final RpcMessageEncoder encoder = new RpcMessageEncoder();
+    private final RpcMessageDecoder decoder = new RpcMessageDecoder();
+    private EmbeddedChannel channel;
+    private ChannelHandlerContext encoderContext;
+    private ChannelHandlerContext decoderContext;
+    private RpcMessage message;
+    private Serializer serializer;
+    private Compress compressor;
+    private ByteBuf out;
+    // 流式路径编码出的完整消息，解码时每次读它的一个 duplicate
+    private ByteBuf frame;
+    private ByteBuf byteArrayFrame;
+
+    @Setup
+    public void setup() throws Exception {
+        channel = new EmbeddedChannel(encoder, decoder);
+        encoderContext = channel.pipeline().context(encoder);
+        decoderContext = channel.pipeline().context(decoder);
+        byte compressType = CompressTypeEnum.getByName(compress).getCode();
+        message = RpcMessage.builder()
+                .messageType(RpcConstants.REQUEST_TYPE)
+                .codec(SerializationTypeEnum.PROTOSTUFF.getCode())
+                .compress(compressType)
+                .requestId(1)
+                .data(Payloads.request(size)).build();
+        serializer = CodecRegistry.getSerializer(message.getCodec());
+        compressor = compressType == CompressTypeEnum.NONE.getCode() ? null : CodecRegistry.getCompress(compressType);
+        out = PooledByteBufAllocator.DEFAULT.buffer(size * 2 + 256);
+        encoder.encode(encoderContext, message, out);
+        frame = out.copy();
+        out.clear();
+        encodeByteArray();
+        byteArrayFrame = out.copy();
+    }
+
+    @TearDown
+    public void tearDown() {
+        out.release();
+        frame.release();
+        byteArrayFrame.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public ByteBuf encode() throws Exception {
+        out.clear();
+        encoder.encode(encoderContext, message, out);
+        return out;
+    }
+
+    @Benchmark
+    public ByteBuf encodeByteArray() {
+        out.clear();
+        byte[] body = serializer.serialize(message.getData());
+        byte compressType = CompressTypeEnum.NONE.getCode();
+        // 与编码器相同，1KB 以下不压缩
+        if (compressor != null && body.length >= COMPRESS_THRESHOLD) {
+            body = compressor.compress(body);
+            compressType = message.getCompress();
+        }
+        out.writeBytes(RpcConstants.MAGIC_NUMBER);
+        out.writeByte(RpcConstants.VERSION);
+        out.writeInt(RpcConstants.HEAD_LENGTH_V2 + body.length);
+        out.writeByte(message.getMessageType());
+        out.writeByte(message.getCodec());
+        out.writeByte(compressType);
+        out.writeLong(message.getRequestId());
+        out.writeBytes(body);
+        return out;
+    }
+
+    @Benchmark
+    public Object decode() throws Exception {
+        return decoder.decode(decoderContext, frame.duplicate());
+    }
+
+    @Benchmark
+    public Object decodeByteArray() {
+        ByteBuf in = byteArrayFrame.duplicate();
+        byte compressType = in.getByte(COMPRESS_INDEX);
+        in.skipBytes(RpcConstants.HEAD_LENGTH_V2);
+        byte[] body = new byte[in.readableBytes()];
+        in.readBytes(body);
+        if (compressType != CompressTypeEnum.NONE.getCode()) {
+            body = compressor.decompress(body);
+        }
+        return serializer.deserialize(body, RpcRequest.class);
+    }
+}
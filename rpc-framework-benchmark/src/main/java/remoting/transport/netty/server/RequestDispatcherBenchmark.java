@@ -0,0 +1,81 @@
+package remoting.transport.netty.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import provider.ServiceMethod;
+import utils.ThreadPoolFactoryUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 服务方法阻塞（模拟 JDBC、HTTP 调用）时各执行方式处理一批请求的时间：
+ * eventloop 在调用线程（相当于一个 IO 线程）上逐个执行，shared 使用 CPU 数 * 2 个线程的线程池，
+ * virtual 每个请求一个虚拟线程，同时执行的请求数受 {@link VirtualThreadLimiter} 限制。
+ * virtual 需要用 JDK 21+ 运行，低版本 JDK 上退回 shared
+ * @author Chen
+ * @create 2026-10-18 12:20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class RequestDispatcherBenchmark {
+
+    private static final int QUEUE_CAPACITY = 1024;
+
+    @Param({"eventloop", "shared", "virtual"})
+    private String mode;
+
+    // 一批同时到达的请求数
+    @Param({"256"})
+    private int requests;
+
+    // 每个请求阻塞的时间（微秒）
+    @Param({"1000"})
+    private int blockMicros;
+
+    @Param({"256"})
+    private int virtualMaxConcurrency;
+
+    private RequestDispatcher requestDispatcher;
+    private ServiceMethod serviceMethod;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        requestDispatcher = new RequestDispatcher(mode, Runtime.getRuntime().availableProcessors() * 2, QUEUE_CAPACITY, virtualMaxConcurrency);
+        serviceMethod = new ServiceMethod(1, "BlockingService", new Object(), Object.class.getMethod("toString"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        ThreadPoolFactoryUtils.shutDownAllThreadPool();
+    }
+
+    @Benchmark
+    public void dispatchBlockingRequests() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(requests);
+        long blockNanos = TimeUnit.MICROSECONDS.toNanos(blockMicros);
+        for (int i = 0; i < requests; i++) {
+            requestDispatcher.dispatch(serviceMethod, () -> {
+                LockSupport.parkNanos(blockNanos);
+                done.countDown();
+                return null;
+            }, done::countDown);
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,76 @@
+package serialize;
+
+import extension.ExtensionLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import remoting.dto.Payloads;
+import remoting.dto.RpcRequest;
+import remoting.dto.RpcResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * kryo 与 protostuff 序列化、反序列化请求和响应的开销。
+ * 序列化时除了输出之外分配了多少字节用 gc profiler 查看：java -jar benchmarks.jar SerializerBenchmark -prof gc
+ * @author Chen
+ * @create 2026-10-18 12:00
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    // 扩展名与 SerializationTypeEnum 一致
+    @Param({"kyro", "protostuff"})
+    private String serializer;
+
+    @Param({"128", "4096"})
+    private int size;
+
+    private Serializer instance;
+    private RpcRequest request;
+    private RpcResponse<Object> response;
+    private byte[] requestBytes;
+    private byte[] responseBytes;
+
+    @Setup
+    public void setup() {
+        instance = ExtensionLoader.getExtensionLoader(Serializer.class).getExtension(serializer);
+        request = Payloads.request(size);
+        response = Payloads.response(size);
+        requestBytes = instance.serialize(request);
+        responseBytes = instance.serialize(response);
+    }
+
+    @Benchmark
+    public byte[] serializeRequest() {
+        return instance.serialize(request);
+    }
+
+    @Benchmark
+    public RpcRequest deserializeRequest() {
+        return instance.deserialize(requestBytes, RpcRequest.class);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() {
+        return instance.serialize(response);
+    }
+
+    @Benchmark
+    public RpcResponse<?> deserializeResponse() {
+        return instance.deserialize(responseBytes, RpcResponse.class);
+    }
+}
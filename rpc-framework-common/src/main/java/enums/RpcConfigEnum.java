@@ -12,7 +12,98 @@ import lombok.Getter;
 public enum RpcConfigEnum {
 
     RPC_CONFIG_PATH("rpc.properties"),
-    ZK_ADDRESS("rpc.zookeeper.address");
+    ZK_ADDRESS("rpc.zookeeper.address"),
+    // 消息体小于该字节数时不压缩
+    COMPRESS_THRESHOLD("rpc.compress.threshold"),
+    // 发送消息时使用的压缩类型：none、gzip、lz4、deflate、zstd
+    COMPRESS_TYPE("rpc.compress.type"),
+    ZSTD_LEVEL("rpc.compress.zstd.level"),
+    // zstd 预训练字典的路径（classpath 或文件系统），通信双方必须使用同一个字典
+    ZSTD_DICTIONARY("rpc.compress.zstd.dictionary"),
+    // 客户端发送请求时使用的序列化类型：kyro、protostuff，服务端按请求的序列化类型响应
+    SERIALIZATION_TYPE("rpc.serialization.type"),
+    // 客户端使用的协议版本：2（默认）或 1，连接只支持 v1 的旧服务端时配置为 1
+    PROTOCOL_VERSION("rpc.protocol.version"),
+    // 网络传输实现：auto（默认，Linux 上可用时使用 epoll，否则 nio）、epoll、nio
+    TRANSPORT_TYPE("rpc.transport.type"),
+    // epoll 下以 SO_REUSEPORT 绑定同一端口的监听 channel 个数，由内核在它们之间分发新连接
+    SERVER_ACCEPTORS("rpc.server.acceptors"),
+    // epoll 下 TCP Fast Open 的队列长度，0（默认）表示关闭；客户端大于 0 时开启 TCP_FASTOPEN_CONNECT
+    TCP_FASTOPEN("rpc.transport.tcp.fastopen"),
+    // epoll 下是否开启 TCP_QUICKACK，默认开启
+    TCP_QUICKACK("rpc.transport.tcp.quickack"),
+    // 客户端和服务端是否开启 TCP_NODELAY，默认开启
+    TCP_NODELAY("rpc.transport.tcp.nodelay"),
+    // 是否使用池化的直接内存 ByteBuf，默认 true；false 时使用池化的堆内存
+    ALLOCATOR_DIRECT("rpc.transport.allocator.direct"),
+    // AdaptiveRecvByteBufAllocator 每次读取分配的缓冲区大小的下限、初始值、上限
+    RECV_BUFFER_MIN("rpc.transport.recvbuf.min"),
+    RECV_BUFFER_INITIAL("rpc.transport.recvbuf.initial"),
+    RECV_BUFFER_MAX("rpc.transport.recvbuf.max"),
+    // 写缓冲区的低、高水位，待发送的字节数超过高水位时 channel 变为不可写
+    WRITE_BUFFER_LOW("rpc.transport.writebuffer.low"),
+    WRITE_BUFFER_HIGH("rpc.transport.writebuffer.high"),
+    // socket 发送、接收缓冲区大小，0（默认）表示使用系统默认值
+    SO_SNDBUF("rpc.transport.sndbuf"),
+    SO_RCVBUF("rpc.transport.rcvbuf"),
+    // 是否合并 flush：同一轮事件循环中的多次 flush 合并为一次写系统调用，默认关闭
+    FLUSH_CONSOLIDATION("rpc.transport.flush.consolidation"),
+    // 合并 flush 时最多累积多少次 flush 就必须真正写出一次
+    FLUSH_MAX_BATCH("rpc.transport.flush.max-batch"),
+    // 是否统计每次 flush 平均写出的消息数，默认关闭
+    FLUSH_STATS("rpc.transport.flush.stats"),
+    // 服务端执行服务方法的方式：eventloop（在 Netty 的 IO 线程上执行）、shared（默认，共用一个有界线程池）、
+    // isolated（每个服务一个独立的有界线程池）、virtual（JDK 21+ 每个请求一个虚拟线程）
+    SERVER_EXECUTOR("rpc.server.executor"),
+    // shared/isolated 模式下每个线程池的线程数，默认 CPU 核数 * 2
+    SERVER_EXECUTOR_THREADS("rpc.server.executor.threads"),
+    // shared/isolated 模式下每个线程池的等待队列长度，队列满时立即返回 SERVER_BUSY
+    SERVER_EXECUTOR_QUEUE("rpc.server.executor.queue"),
+    // virtual 模式下每个服务同时执行的请求数上限，超出的请求在虚拟线程中等待，等待数超过队列长度时返回 SERVER_BUSY
+    SERVER_VIRTUAL_MAX_CONCURRENCY("rpc.server.executor.virtual.max-concurrency"),
+    // virtual 模式下设置 jdk.tracePinnedThreads（short 或 full），虚拟线程被 synchronized 固定在载体线程上时打印栈
+    SERVER_VIRTUAL_TRACE_PINNED("rpc.server.executor.virtual.trace-pinned"),
+    // 服务端发布到注册中心的权重，客户端按权重比例分配请求，默认 100
+    SERVER_WEIGHT("rpc.server.weight"),
+    // 服务端的预热时间（毫秒），发布后的这段时间内客户端分配的权重从 1 线性增长到 rpc.server.weight，默认 60000，0 表示不预热
+    SERVER_WARMUP("rpc.server.warmup"),
+    // 客户端调用的默认超时时间（毫秒），@RpcReference 没有指定 timeout 时使用，默认 10000
+    CLIENT_TIMEOUT("rpc.client.timeout"),
+    // 异步调用（返回 CompletableFuture 的方法）的回调在哪里执行：shared（默认，客户端共用的回调线程池）
+    // 或 direct（直接在 Netty 的 IO 线程上执行，回调中不能有阻塞操作）。@RpcReference 可以为单个引用另外指定
+    CLIENT_CALLBACK_EXECUTOR("rpc.client.callback-executor"),
+    // 连接断开后后台重连的最大次数，每次间隔按指数退避，默认 10
+    CLIENT_RECONNECT_MAX_ATTEMPTS("rpc.client.reconnect.max-attempts"),
+    // 客户端到每个服务地址建立的连接数，默认 1
+    CLIENT_CONNECTIONS("rpc.client.connections"),
+    // 多个连接时选择连接的方式：round-robin（默认，轮询）或 least-pending（未完成请求最少）
+    CLIENT_CONNECTION_SELECT("rpc.client.connection.select"),
+    // 建立连接的超时时间（毫秒），默认 5000
+    CLIENT_CONNECT_TIMEOUT("rpc.client.connect-timeout"),
+    // 连接失败的地址在这段时间（毫秒）内直接失败，不再重复建连，默认 3000，0 表示不缓存
+    CLIENT_UNREACHABLE_TTL("rpc.client.unreachable-ttl"),
+    // 第一次调用某个服务时，在后台连接服务发现返回的所有地址，默认 true
+    CLIENT_PRECONNECT("rpc.client.preconnect"),
+    // 每个连接的在途请求窗口上限，默认 1024，小于等于 0 表示不限制
+    CLIENT_WINDOW_MAX("rpc.client.window.max"),
+    // 在途请求窗口的初始大小，默认 32
+    CLIENT_WINDOW_INITIAL("rpc.client.window.initial"),
+    // 是否按 RTT、超时和服务端通告的容量自适应调整窗口（AIMD），默认 true，false 时窗口固定为初始大小
+    CLIENT_WINDOW_ADAPTIVE("rpc.client.window.adaptive"),
+    // 窗口满时在本地排队的请求数上限，队列也满时立即失败，默认 1024
+    CLIENT_WINDOW_QUEUE("rpc.client.window.queue"),
+    // RTT 超过最小 RTT 的多少倍时认为服务端开始排队并减小窗口，默认 2.0
+    CLIENT_WINDOW_RTT_TOLERANCE("rpc.client.window.rtt-tolerance"),
+    // 所在的可用区或机架：服务端发布到注册中心，客户端优先调用同一可用区的服务端，不配置时不按可用区路由
+    ZONE("rpc.zone"),
+    // 客户端本可用区健康实例的权重之和低于本可用区全部权重的这个比例时，请求也发往其他可用区，默认 0.5
+    ZONE_SPILL_THRESHOLD("rpc.zone.spill-threshold"),
+    // 负载均衡策略：random（默认，按权重随机）、roundrobin（平滑加权轮询）、consistenthash、leastactive、peakewma、p2c
+    LOAD_BALANCE("rpc.loadbalance"),
+    // 一致性哈希负载均衡用哪些参数计算哈希键，逗号分隔的参数下标，默认 0（第一个参数）
+    CONSISTENT_HASH_ARGUMENTS("rpc.loadbalance.consistent-hash.arguments"),
+    // 一致性哈希中每个服务地址的虚节点数，默认 160
+    CONSISTENT_HASH_NODES("rpc.loadbalance.consistent-hash.nodes");
 
     private final String propertyValue;
 
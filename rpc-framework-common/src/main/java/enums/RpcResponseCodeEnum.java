@@ -14,7 +14,10 @@ import lombok.ToString;
 public enum RpcResponseCodeEnum {
 
     SUCCESS(200, "The remote call is successful"),
-    FAIL(500, "The remote call is fail");
+    FAIL(500, "The remote call is fail"),
+    SERVICE_CAN_NOT_BE_FOUND(404, "The service or method can not be found on the server"),
+    UNKNOWN_METHOD_ID(510, "The method id is unknown to the server, resend in full form"),
+    SERVER_BUSY(503, "The server is busy, the request is rejected");
     private final int code;
 
     private final String message;
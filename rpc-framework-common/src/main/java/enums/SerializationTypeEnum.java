@@ -12,7 +12,7 @@ import lombok.Getter;
 public enum SerializationTypeEnum {
 
     KYRO((byte) 0x01, "kyro"),
-    PROTOSTUFF((byte) 0x02, "protostuff");;
+    PROTOSTUFF((byte) 0x02, "protostuff");
 
     private final byte code;
     private final String name;
@@ -26,4 +26,13 @@ public enum SerializationTypeEnum {
         return null;
     }
 
+    public static SerializationTypeEnum getByName(String name) {
+        for (SerializationTypeEnum c : SerializationTypeEnum.values()) {
+            if (c.name.equalsIgnoreCase(name)) {
+                return c;
+            }
+        }
+        return null;
+    }
+
 }
@@ -0,0 +1,63 @@
+package utils;
+
+import enums.RpcConfigEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Properties;
+
+/**
+ * 读取 rpc.properties 中的配置项，文件只在首次使用时读取一次
+ * @author Chen
+ * @create 2026-10-17 11:02
+ */
+@Slf4j
+public final class RpcConfigUtil {
+
+    private RpcConfigUtil() {
+    }
+
+    private static final class PropertiesHolder {
+        private static final Properties PROPERTIES = load();
+
+        private static Properties load() {
+            Properties properties = PropertiesFileUtil.readPropertiesFile(RpcConfigEnum.RPC_CONFIG_PATH.getPropertyValue());
+            return properties != null ? properties : new Properties();
+        }
+    }
+
+    public static String getString(RpcConfigEnum rpcConfigEnum, String defaultValue) {
+        String value = PropertiesHolder.PROPERTIES.getProperty(rpcConfigEnum.getPropertyValue());
+        return value != null && !value.trim().isEmpty() ? value.trim() : defaultValue;
+    }
+
+    public static int getInt(RpcConfigEnum rpcConfigEnum, int defaultValue) {
+        String value = getString(rpcConfigEnum, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            log.error("invalid value [{}] of config [{}], use default [{}]", value, rpcConfigEnum.getPropertyValue(), defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static long getLong(RpcConfigEnum rpcConfigEnum, long defaultValue) {
+        String value = getString(rpcConfigEnum, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            log.error("invalid value [{}] of config [{}], use default [{}]", value, rpcConfigEnum.getPropertyValue(), defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static boolean getBoolean(RpcConfigEnum rpcConfigEnum, boolean defaultValue) {
+        String value = getString(rpcConfigEnum, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
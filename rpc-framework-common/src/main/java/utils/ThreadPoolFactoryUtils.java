@@ -0,0 +1,90 @@
+package utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 创建并登记线程池，按线程名前缀区分，同一前缀只创建一次；关闭 JVM 时统一关闭
+ * @author Chen
+ * @create 2026-10-17 16:00
+ */
+@Slf4j
+public final class ThreadPoolFactoryUtils {
+
+    /**
+     * key: 线程名前缀
+     * value: 线程池
+     */
+    private static final Map<String, ExecutorService> THREAD_POOLS = new ConcurrentHashMap<>();
+
+    private ThreadPoolFactoryUtils() {
+    }
+
+    /**
+     * 创建有界队列的线程池，队列满且线程数达到上限时直接抛出 RejectedExecutionException，
+     * 调用方据此快速拒绝，而不是让任务无限排队
+     * @param threadNamePrefix 线程名前缀，同时作为线程池的标识
+     * @param corePoolSize     核心线程数
+     * @param maximumPoolSize  最大线程数
+     * @param queueCapacity    等待队列长度
+     */
+    public static ExecutorService createCustomThreadPoolIfAbsent(String threadNamePrefix, int corePoolSize, int maximumPoolSize, int queueCapacity) {
+        return THREAD_POOLS.computeIfAbsent(threadNamePrefix, prefix -> new ThreadPoolExecutor(corePoolSize, maximumPoolSize,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), createThreadFactory(prefix, false),
+                new ThreadPoolExecutor.AbortPolicy()));
+    }
+
+    /**
+     * 登记一个由调用方创建的线程池，使其也在 {@link #shutDownAllThreadPool()} 时关闭
+     */
+    public static ExecutorService registerThreadPoolIfAbsent(String name, ExecutorService executorService) {
+        ExecutorService old = THREAD_POOLS.putIfAbsent(name, executorService);
+        if (old != null) {
+            executorService.shutdown();
+            return old;
+        }
+        return executorService;
+    }
+
+    /**
+     * @param threadNamePrefix 线程名前缀，线程名为 前缀-序号
+     * @param daemon           是否为守护线程
+     */
+    public static ThreadFactory createThreadFactory(String threadNamePrefix, boolean daemon) {
+        AtomicInteger index = new AtomicInteger(0);
+        return runnable -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + "-" + index.incrementAndGet());
+            thread.setDaemon(daemon);
+            return thread;
+        };
+    }
+
+    /**
+     * 关闭所有登记的线程池，等待已提交的任务执行完
+     */
+    public static void shutDownAllThreadPool() {
+        log.info("call shutDownAllThreadPool method");
+        THREAD_POOLS.forEach((name, executorService) -> {
+            executorService.shutdown();
+            log.info("shut down thread pool [{}] [{}]", name, executorService.isTerminated());
+            try {
+                if (!executorService.awaitTermination(10, TimeUnit.SECONDS)) {
+                    executorService.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                log.error("Thread pool never terminated");
+                executorService.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        });
+        THREAD_POOLS.clear();
+    }
+}
@@ -23,4 +23,30 @@ public @interface RpcReference {
      */
     String group() default "";
 
+    /**
+     * 代理方式：jdk（JDK 动态代理，默认）或 bytebuddy（字节码生成的 stub）
+     */
+    String proxy() default "jdk";
+
+    /**
+     * 调用超时时间（毫秒），默认 -1 表示使用 rpc.client.timeout，0 表示不超时
+     */
+    long timeout() default -1;
+
+    /**
+     * 单个方法的超时时间，格式为 方法名=毫秒，eg: {"hello=500", "batch=3000"}
+     */
+    String[] methodTimeouts() default {};
+
+    /**
+     * 负载均衡策略：random、consistenthash、leastactive、peakewma、p2c，默认空string表示使用 rpc.loadbalance
+     */
+    String loadBalance() default "";
+
+    /**
+     * 异步调用的回调在哪里执行：shared（客户端共用的回调线程池）、direct（Netty 的 IO 线程）
+     * 或 Spring 容器中一个 {@link java.util.concurrent.Executor} bean 的名字，默认空string表示使用 rpc.client.callback-executor
+     */
+    String callbackExecutor() default "";
+
 }
@@ -2,6 +2,12 @@ package compress;
 
 import extension.SPI;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 /**
  * @author cyx
  * @create 2021-03-30 19:41
@@ -14,4 +20,41 @@ public interface Compress {
 
     byte[] decompress(byte[] bytes);
 
+    /**
+     * 流式压缩：返回一个包装了 out 的输出流，写入其中的数据被压缩后写到 out，关闭时写完尾部数据。
+     * 默认实现先缓存到 byte[]，关闭时再调用 {@link #compress(byte[])}，实现类可按需覆盖。
+     * @param out 压缩后数据的去向
+     * @return 接收原始数据的输出流
+     */
+    default OutputStream compress(OutputStream out) {
+        return new ByteArrayOutputStream() {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    closed = true;
+                    out.write(Compress.this.compress(toByteArray()));
+                    out.flush();
+                }
+            }
+        };
+    }
+
+    /**
+     * 流式解压：返回一个从 in 读取压缩数据、对外提供原始数据的输入流。
+     * 默认实现读出全部字节后调用 {@link #decompress(byte[])}，实现类可按需覆盖。
+     * @param in 压缩数据来源，读到末尾即为完整的压缩数据
+     * @return 原始数据的输入流
+     */
+    default InputStream decompress(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024 * 4];
+        int n;
+        while ((n = in.read(buffer)) > -1) {
+            bytes.write(buffer, 0, n);
+        }
+        return new ByteArrayInputStream(decompress(bytes.toByteArray()));
+    }
+
 }
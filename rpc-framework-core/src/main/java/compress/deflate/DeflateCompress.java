@@ -0,0 +1,91 @@
+package compress.deflate;
+
+import compress.Compress;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 与 gzip 相同的 deflate 算法（zlib 格式），但每个线程复用同一个 Deflater/Inflater，
+ * 省去每次调用创建、销毁 native zlib 上下文的开销。
+ * 复用的 Deflater/Inflater 每次使用前 reset，不会调用 end()，随线程一起回收。
+ * @author Chen
+ * @create 2026-10-17 11:45
+ */
+public class DeflateCompress implements Compress {
+
+    private static final int BUFFER_SIZE = 1024 * 4;
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(Deflater::new);
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    @Override
+    public byte[] compress(byte[] bytes) {
+        if (bytes == null) {
+            throw new NullPointerException("bytes is null");
+        }
+        Deflater deflater = deflater();
+        deflater.setInput(bytes);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(bytes.length / 2, 64));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(buffer);
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(byte[] bytes) {
+        if (bytes == null) {
+            throw new NullPointerException("bytes is null");
+        }
+        Inflater inflater = inflater();
+        inflater.setInput(bytes);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 2);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new RuntimeException("deflate decompress error: truncated data");
+                }
+                out.write(buffer, 0, n);
+            }
+        } catch (DataFormatException e) {
+            throw new RuntimeException("deflate decompress error", e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out) {
+        // 传入自定义的 Deflater 时，DeflaterOutputStream 关闭时只会 finish 而不会 end 它
+        return new DeflaterOutputStream(out, deflater(), BUFFER_SIZE);
+    }
+
+    @Override
+    public InputStream decompress(InputStream in) throws IOException {
+        return new InflaterInputStream(in, inflater(), BUFFER_SIZE);
+    }
+
+    private static Deflater deflater() {
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        return deflater;
+    }
+
+    private static Inflater inflater() {
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        return inflater;
+    }
+}
@@ -5,6 +5,8 @@ import compress.Compress;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -50,4 +52,18 @@ public class GzipCompress implements Compress {
             throw new RuntimeException("gzip decompress error", e);
         }
     }
+
+    @Override
+    public OutputStream compress(OutputStream out) {
+        try {
+            return new GZIPOutputStream(out, BUFFER_SIZE);
+        } catch (IOException e) {
+            throw new RuntimeException("gzip compress error", e);
+        }
+    }
+
+    @Override
+    public InputStream decompress(InputStream in) throws IOException {
+        return new GZIPInputStream(in, BUFFER_SIZE);
+    }
 }
@@ -0,0 +1,122 @@
+package compress.zstd;
+
+import com.github.luben.zstd.RecyclingBufferPool;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import compress.Compress;
+import enums.RpcConfigEnum;
+import lombok.extern.slf4j.Slf4j;
+import utils.RpcConfigUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * zstd 压缩。压缩率接近 gzip，速度接近 lz4。
+ * 配置了 rpc.compress.zstd.dictionary 时加载一次预训练字典并在所有调用中复用，
+ * 对 RpcRequest/RpcResponse 这类结构相近的小消息能显著提高压缩率。
+ * @author Chen
+ * @create 2026-10-17 11:50
+ */
+@Slf4j
+public class ZstdCompress implements Compress {
+
+    private static final int BUFFER_SIZE = 1024 * 4;
+    private static final int DEFAULT_LEVEL = 3;
+
+    private final int level;
+    private final ZstdDictCompress dictCompress;
+    private final ZstdDictDecompress dictDecompress;
+
+    public ZstdCompress() {
+        this.level = RpcConfigUtil.getInt(RpcConfigEnum.ZSTD_LEVEL, DEFAULT_LEVEL);
+        byte[] dictionary = loadDictionary(RpcConfigUtil.getString(RpcConfigEnum.ZSTD_DICTIONARY, null));
+        this.dictCompress = dictionary == null ? null : new ZstdDictCompress(dictionary, level);
+        this.dictDecompress = dictionary == null ? null : new ZstdDictDecompress(dictionary);
+    }
+
+    @Override
+    public byte[] compress(byte[] bytes) {
+        if (bytes == null) {
+            throw new NullPointerException("bytes is null");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream zstd = compress(out)) {
+            zstd.write(bytes);
+        } catch (IOException e) {
+            throw new RuntimeException("zstd compress error", e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(byte[] bytes) {
+        if (bytes == null) {
+            throw new NullPointerException("bytes is null");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream zstd = decompress(new ByteArrayInputStream(bytes))) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = zstd.read(buffer)) > -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("zstd decompress error", e);
+        }
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out) {
+        try {
+            // 复用 native 缓冲区，避免每条消息都分配新的 direct buffer
+            ZstdOutputStream zstd = new ZstdOutputStream(out, RecyclingBufferPool.INSTANCE);
+            zstd.setLevel(level);
+            if (dictCompress != null) {
+                zstd.setDict(dictCompress);
+            }
+            return zstd;
+        } catch (IOException e) {
+            throw new RuntimeException("zstd compress error", e);
+        }
+    }
+
+    @Override
+    public InputStream decompress(InputStream in) throws IOException {
+        ZstdInputStream zstd = new ZstdInputStream(in, RecyclingBufferPool.INSTANCE);
+        if (dictDecompress != null) {
+            zstd.setDict(dictDecompress);
+        }
+        return zstd;
+    }
+
+    // 先在 classpath 中查找字典，找不到再按文件路径读取
+    private static byte[] loadDictionary(String path) {
+        if (path == null) {
+            return null;
+        }
+        try (InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(path)) {
+            if (in != null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buffer)) > -1) {
+                    out.write(buffer, 0, n);
+                }
+                return out.toByteArray();
+            }
+            return Files.readAllBytes(Paths.get(path));
+        } catch (IOException e) {
+            log.error("load zstd dictionary [{}] fail, compress without dictionary", path);
+            return null;
+        }
+    }
+}
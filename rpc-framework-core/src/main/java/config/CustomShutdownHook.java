@@ -3,6 +3,7 @@ package config;
 import lombok.extern.slf4j.Slf4j;
 import registry.util.CuratorUtils;
 import remoting.transport.netty.server.NettyRpcServer;
+import utils.ThreadPoolFactoryUtils;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -30,7 +31,7 @@ public class CustomShutdownHook {
                 InetSocketAddress inetSocketAddress = new InetSocketAddress(InetAddress.getLocalHost().getHostAddress(), NettyRpcServer.PORT);
                 CuratorUtils.clearRegistry(CuratorUtils.getZkClient(), inetSocketAddress);
             } catch (UnknownHostException ignored) {}
-//            ThreadPoolFactoryUtils.shutDownAllThreadPool();
+            ThreadPoolFactoryUtils.shutDownAllThreadPool();
         }));
     }
 }
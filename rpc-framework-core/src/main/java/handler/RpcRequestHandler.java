@@ -1,14 +1,13 @@
 package handler;
 
+import enums.RpcErrorMessageEnum;
 import exception.RpcException;
 import factory.SingletonFactory;
+import provider.ServiceMethod;
 import provider.ServiceProvider;
 import provider.ServiceProviderImpl;
 import remoting.dto.RpcRequest;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-
 /**
  * RpcRequest 处理器
  * @author cyx
@@ -28,26 +27,36 @@ public class RpcRequestHandler {
      * @return  响应结果
      */
     public Object handle(RpcRequest rpcRequest) {
-        // 根据服务名拿到相应的服务对象
-        Object service = serviceProvider.getService(rpcRequest.toRpcProperties());
-        return invokeTargetMethod(rpcRequest, service);
+        ServiceMethod serviceMethod = resolve(rpcRequest);
+        if (serviceMethod == null) {
+            throw new RpcException(RpcErrorMessageEnum.SERVICE_CAN_NOT_BE_FOUND, rpcRequest.getMethodId() != 0
+                    ? "methodId:" + rpcRequest.getMethodId() : rpcRequest.getRpcServiceName() + "#" + rpcRequest.getMethodName());
+        }
+        return invoke(serviceMethod, rpcRequest);
     }
 
     /**
-     * 获取目标方法的执行结果
+     * 找到请求要调用的服务方法：紧凑形式按 methodId 下标查找，完整形式按方法签名查找
      * @param rpcRequest 客户端请求
-     * @param service    服务对象
-     * @return           目标方法执行后的返回结果
+     * @return 服务方法，找不到时返回 null：紧凑形式的 methodId 未知时客户端应改用完整形式重发，
+     * 完整形式找不到说明服务端没有发布这个服务或方法。两种情况都只影响这一个请求，不应关闭连接
      */
-    private Object invokeTargetMethod(RpcRequest rpcRequest, Object service) {
-        Object result;
-        try {
-            Method method = service.getClass().getMethod(rpcRequest.getMethodName(), rpcRequest.getParamTypes());
-            result = method.invoke(service, rpcRequest.getParameters());
-        } catch (NoSuchMethodException | IllegalArgumentException | InvocationTargetException | IllegalAccessException e) {
-            throw new RpcException(e.getMessage(), e);
+    public ServiceMethod resolve(RpcRequest rpcRequest) {
+        if (rpcRequest.getMethodId() != 0) {
+            return serviceProvider.getServiceMethod(rpcRequest.getMethodId());
         }
-        return result;
+        return serviceProvider.getServiceMethod(
+                ServiceMethod.signature(rpcRequest.getRpcServiceName(), rpcRequest.getMethodName(), rpcRequest.getParamTypes()));
+    }
+
+    /**
+     * 获取目标方法的执行结果
+     * @param serviceMethod 服务方法
+     * @param rpcRequest    客户端请求
+     * @return              目标方法执行后的返回结果
+     */
+    public Object invoke(ServiceMethod serviceMethod, RpcRequest rpcRequest) {
+        return serviceMethod.invoke(rpcRequest.getParameters());
     }
 
 }
@@ -1,5 +1,8 @@
 package loadbalance;
 
+import registry.ServiceInstance;
+import remoting.dto.RpcRequest;
+
 import java.util.List;
 
 /**
@@ -10,15 +13,23 @@ import java.util.List;
 public abstract class AbstractLoadBalance implements LoadBalance {
 
     @Override
-    public String selectServiceAddress(List<String> serviceAddresses, String rpcServiceName) {
-        if (serviceAddresses == null || serviceAddresses.size() == 0) {
+    public ServiceInstance selectServiceAddress(List<ServiceInstance> serviceInstances, RpcRequest rpcRequest) {
+        if (serviceInstances == null || serviceInstances.size() == 0) {
             return null;
         }
-        if (serviceAddresses.size() == 1) {
-            return serviceAddresses.get(0);
+        if (serviceInstances.size() == 1) {
+            ServiceInstance serviceInstance = serviceInstances.get(0);
+            return isWeighted() && serviceInstance.getWarmWeight() <= 0 ? null : serviceInstance;
         }
-        return doSelect(serviceAddresses, rpcServiceName);
+        return doSelect(serviceInstances, rpcRequest);
+    }
+
+    /**
+     * @return 是否按权重选择。按权重选择的策略不会选中权重为 0 的实例，没有权重为正的实例时返回 null
+     */
+    protected boolean isWeighted() {
+        return false;
     }
 
-    protected abstract String doSelect(List<String> serviceAddresses, String rpcServiceName);
+    protected abstract ServiceInstance doSelect(List<ServiceInstance> serviceInstances, RpcRequest rpcRequest);
 }
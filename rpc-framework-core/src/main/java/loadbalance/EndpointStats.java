@@ -0,0 +1,148 @@
+package loadbalance;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 客户端按服务地址统计的实时数据：正在处理的请求数和响应时间的 peak EWMA，供负载均衡绕开变慢的服务端。
+ * <p>
+ * peak EWMA：新的响应时间比当前值大时直接取新值，比当前值小时按距上次更新的时间指数衰减，
+ * 服务端 GC 停顿或排队时立即被感知。失败的请求按至少 {@link #FAILURE_PENALTY_NANOS} 计入。
+ * <p>
+ * 读取时也按距上次更新的时间向 {@link #INITIAL_RTT_NANOS} 衰减：变慢过的地址即使因此不再分到请求，
+ * 负载也会随时间降回初始值，重新被选中、得到新的响应时间，不会被永久冷落。
+ * 还没有完成过请求的地址从初始值开始，正在处理的请求数照样计入负载，新启动的实例不会被所有请求同时涌入
+ * @author Chen
+ * @create 2026-10-17 20:10
+ */
+public final class EndpointStats {
+
+    /**
+     * key: 服务地址 host:port，与注册中心中的子节点名一致
+     * value: 统计数据
+     */
+    private static final Map<String, EndpointStats> STATS = new ConcurrentHashMap<>();
+    // 衰减的时间常数，响应时间的影响大约在这段时间后降到 1/e
+    private static final double DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // 还没有响应时间的地址的初始值，大约是同机房一次 RPC 的响应时间
+    private static final double INITIAL_RTT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // 连续失败这么多次后认为不健康，下一次成功后恢复
+    private static final int UNHEALTHY_FAILURES = 3;
+    // 不健康的地址距最后一次失败这么久后重新被认为健康，接受试探的请求：成功则恢复，再失败则再等一个周期
+    private static final long UNHEALTHY_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile double ewmaNanos = INITIAL_RTT_NANOS;
+    private volatile long lastUpdateNanos = System.nanoTime();
+    private volatile long lastFailureNanos;
+
+    public static EndpointStats of(String address) {
+        return STATS.computeIfAbsent(address, key -> new EndpointStats());
+    }
+
+    public static EndpointStats of(InetSocketAddress inetSocketAddress) {
+        return of(inetSocketAddress.getHostString() + ":" + inetSocketAddress.getPort());
+    }
+
+    /**
+     * 请求发出时调用
+     */
+    public void begin() {
+        active.incrementAndGet();
+    }
+
+    /**
+     * 请求完成时调用
+     * @param rttNanos 从发出到完成的时间
+     * @param success  是否成功，失败时按惩罚值计入
+     */
+    public void end(long rttNanos, boolean success) {
+        active.decrementAndGet();
+        update(success ? rttNanos : Math.max(rttNanos, FAILURE_PENALTY_NANOS));
+        recordResult(success);
+    }
+
+    /**
+     * 建立连接失败时调用：按惩罚值计入响应时间并记一次失败，连不上的地址负载变高，
+     * 不健康之前也不会因为没有在途请求、响应时间是初始值而被 leastactive、peakewma、p2c 优先选中
+     */
+    public void recordConnectFailure() {
+        update(FAILURE_PENALTY_NANOS);
+        recordResult(false);
+    }
+
+    /**
+     * 记录一次请求或建立连接的结果，用于判断是否健康
+     */
+    public void recordResult(boolean success) {
+        if (success) {
+            if (consecutiveFailures.get() != 0) {
+                consecutiveFailures.set(0);
+            }
+        } else {
+            lastFailureNanos = System.nanoTime();
+            consecutiveFailures.incrementAndGet();
+        }
+    }
+
+    private synchronized void update(long rttNanos) {
+        long now = System.nanoTime();
+        double elapsed = Math.max(0, now - lastUpdateNanos);
+        lastUpdateNanos = now;
+        if (rttNanos > ewmaNanos) {
+            ewmaNanos = rttNanos;
+        } else {
+            double weight = Math.exp(-elapsed / DECAY_NANOS);
+            ewmaNanos = ewmaNanos * weight + rttNanos * (1 - weight);
+        }
+    }
+
+    /**
+     * @return 最近没有连续失败，或者距最后一次失败已经超过冷却时间。连接失败、超时和 SERVER_BUSY 都算失败。
+     * 不健康的地址不再分到请求，也就不会有成功的请求让它恢复，所以冷却时间过后放行试探的请求
+     */
+    public boolean isHealthy() {
+        return isHealthy(System.nanoTime());
+    }
+
+    boolean isHealthy(long nowNanos) {
+        return consecutiveFailures.get() < UNHEALTHY_FAILURES
+                || nowNanos - lastFailureNanos >= UNHEALTHY_COOLDOWN_NANOS;
+    }
+
+    /**
+     * @return 正在处理的请求数
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * @return 响应时间的 peak EWMA（纳秒），已经按距上次更新的时间向初始值衰减，还没有完成过请求时为初始值
+     */
+    public double getEwmaNanos() {
+        return getEwmaNanos(System.nanoTime());
+    }
+
+    double getEwmaNanos(long nowNanos) {
+        double ewma = ewmaNanos;
+        double elapsed = Math.max(0, nowNanos - lastUpdateNanos);
+        return INITIAL_RTT_NANOS + (ewma - INITIAL_RTT_NANOS) * Math.exp(-elapsed / DECAY_NANOS);
+    }
+
+    /**
+     * 负载：peak EWMA * (正在处理的请求数 + 1)，即新请求预计的等待时间
+     */
+    public double getCost() {
+        return getCost(System.nanoTime());
+    }
+
+    double getCost(long nowNanos) {
+        return getEwmaNanos(nowNanos) * (active.get() + 1);
+    }
+}
@@ -1,5 +1,9 @@
 package loadbalance;
 
+import extension.SPI;
+import registry.ServiceInstance;
+import remoting.dto.RpcRequest;
+
 import java.util.List;
 
 /**
@@ -7,12 +11,13 @@ import java.util.List;
  * @author Chen
  * @create 2021-03-27 21:14
  */
+@SPI
 public interface LoadBalance {
     /**
      * 从某服务的多个地址列表中，根据负载均衡策略选择出一个
-     * @param serviceAddresses 服务地址列表
-     * @param rpcServiceName 服务名
-     * @return 目标服务地址
+     * @param serviceInstances 服务实例列表，包含地址和权重等元数据
+     * @param rpcRequest 请求，一致性哈希等策略据此计算哈希键
+     * @return 目标服务实例
      */
-    String selectServiceAddress(List<String> serviceAddresses, String rpcServiceName);
+    ServiceInstance selectServiceAddress(List<ServiceInstance> serviceInstances, RpcRequest rpcRequest);
 }
@@ -0,0 +1,87 @@
+package loadbalance;
+
+import com.google.common.collect.MapMaker;
+import registry.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 可用区就近路由，位于 {@link LoadBalance} 之前：优先把请求发给与客户端同一可用区的服务实例，
+ * 减少跨可用区的延迟和流量费用。本可用区健康实例的权重之和低于本可用区全部权重的 spillThreshold 时，
+ * 认为本地容量不足，退回所有可用区，由负载均衡在全部实例中选择。
+ * 权重为 0 的实例（正在摘流量）不算本可用区的容量，也不放入过滤结果，本可用区只剩这样的实例时同样退回所有可用区。
+ * <p>
+ * 只依赖传入的实例列表和 {@link EndpointStats}，不依赖注册中心。
+ * 过滤结果按传入的实例列表对象缓存，注册中心的实例列表不变、本可用区健康的实例也不变时不分配新的列表
+ * @author Chen
+ * @create 2026-10-17 21:40
+ */
+public class ZoneAwareRouter {
+
+    // 客户端所在的可用区，null 表示不按可用区路由
+    private final String localZone;
+    private final double spillThreshold;
+    /**
+     * key: 传入的实例列表，按对象比较，列表不再被引用后自动移除
+     * value: 上一次过滤出的本可用区健康实例
+     */
+    private final Map<List<ServiceInstance>, List<ServiceInstance>> routed = new MapMaker().weakKeys().makeMap();
+
+    /**
+     * @param localZone      客户端所在的可用区，null 或空表示不按可用区路由
+     * @param spillThreshold 本可用区健康容量占比低于该值时退回所有可用区，取值 0 ~ 1
+     */
+    public ZoneAwareRouter(String localZone, double spillThreshold) {
+        this.localZone = localZone == null || localZone.isEmpty() ? null : localZone;
+        this.spillThreshold = spillThreshold;
+    }
+
+    /**
+     * @param serviceInstances 服务的全部实例，注册中心的同一份实例列表不应被修改
+     * @return 本可用区容量足够时只返回本可用区权重为正的健康实例，否则原样返回全部实例
+     */
+    public List<ServiceInstance> route(List<ServiceInstance> serviceInstances) {
+        if (localZone == null || serviceInstances.size() <= 1) {
+            return serviceInstances;
+        }
+        List<ServiceInstance> previous = routed.get(serviceInstances);
+        // 本可用区的健康实例是否与上一次过滤的结果相同，过滤保持原来的顺序，逐个按对象比较即可
+        boolean unchanged = previous != null;
+        int healthy = 0;
+        long localWeight = 0;
+        long healthyWeight = 0;
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            if (!localZone.equals(serviceInstance.getZone())) {
+                continue;
+            }
+            // 权重作为实例容量的相对值，预热中的实例按预热后的权重计算
+            int weight = serviceInstance.getWarmWeight();
+            if (weight <= 0) {
+                continue;
+            }
+            localWeight += weight;
+            if (EndpointStats.of(serviceInstance.getAddress()).isHealthy()) {
+                healthyWeight += weight;
+                unchanged = unchanged && healthy < previous.size() && previous.get(healthy) == serviceInstance;
+                healthy++;
+            }
+        }
+        if (healthy == 0 || healthyWeight < localWeight * spillThreshold) {
+            return serviceInstances;
+        }
+        if (unchanged && healthy == previous.size()) {
+            return previous;
+        }
+        List<ServiceInstance> local = new ArrayList<>(healthy);
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            if (localZone.equals(serviceInstance.getZone()) && serviceInstance.getWarmWeight() > 0
+                    && EndpointStats.of(serviceInstance.getAddress()).isHealthy()) {
+                local.add(serviceInstance);
+            }
+        }
+        routed.put(serviceInstances, local);
+        return local;
+    }
+}
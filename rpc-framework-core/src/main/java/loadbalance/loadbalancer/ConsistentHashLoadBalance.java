@@ -1,109 +1,210 @@
 package loadbalance.loadbalancer;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import enums.RpcConfigEnum;
 import loadbalance.AbstractLoadBalance;
 import lombok.extern.slf4j.Slf4j;
+import registry.ServiceInstance;
+import remoting.dto.RpcRequest;
+import utils.RpcConfigUtil;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 参考dubbo的一致性hash负载均衡算法：http://dubbo.apache.org/zh-cn/blog/dubbo-consistent-hash-implementation.html
+ * <p>
+ * 哈希键由请求参数计算，rpc.loadbalance.consistent-hash.arguments 指定参与计算的参数下标（默认第一个参数），
+ * 参数相同的请求落到同一个节点。哈希使用 Murmur3，环是排好序的 int[]，选择时二分查找。
+ * <p>
+ * 参数按 toString() 的结果参与哈希，数组按内容。没有重写 toString 的参数类型得到的是带 identity hash 的字符串，
+ * 内容相同的参数也会落到不同节点，第一次遇到这样的类型时会打印警告
  * @author Chen
  * @create 2021-03-30 21:11
  */
 @Slf4j
 public class ConsistentHashLoadBalance extends AbstractLoadBalance {
 
+    private static final HashFunction MURMUR3_32 = Hashing.murmur3_32();
+    private static final HashFunction MURMUR3_128 = Hashing.murmur3_128();
+    private static final int REPLICA_NUMBER = RpcConfigUtil.getInt(RpcConfigEnum.CONSISTENT_HASH_NODES, 160);
+    private static final int[] ARGUMENT_INDEXES = parseArgumentIndexes(
+            RpcConfigUtil.getString(RpcConfigEnum.CONSISTENT_HASH_ARGUMENTS, "0"));
+
+    // 第一次遇到没有重写 toString 的参数类型时打印警告，值表示该类型是否没有重写
+    private static final ClassValue<Boolean> IDENTITY_TO_STRING = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                boolean identity = type.getMethod("toString").getDeclaringClass() == Object.class;
+                if (identity) {
+                    log.warn("argument type [{}] does not override toString(), requests with equal arguments will not stick to the same node",
+                            type.getName());
+                }
+                return identity;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
     // 服务名rpcServiceName，负载均衡选择器selectors
     private final ConcurrentHashMap<String, ConsistentHashSelector> selectors = new ConcurrentHashMap<>();
 
     @Override
-    protected String doSelect(List<String> serviceAddresses, String rpcServiceName) {
-        // 计算哈希值 key，通过这个字段来识别出调用实例是否有变化，有变化则重新创建 ConsistentHashSelector
-        int identityHashCode = System.identityHashCode(serviceAddresses);
-
+    protected ServiceInstance doSelect(List<ServiceInstance> serviceInstances, RpcRequest rpcRequest) {
+        String rpcServiceName = rpcRequest.getRpcServiceName();
         ConsistentHashSelector selector = selectors.get(rpcServiceName);
 
-        // check for updates
-        // 没有存在 selector 或者 invokers 实例有变化，重新创建
-        if (selector == null || selector.identityHashCode != identityHashCode) {
-            selectors.put(rpcServiceName, new ConsistentHashSelector(serviceAddresses, 160, identityHashCode));
-            selector = selectors.get(rpcServiceName);
+        // 没有存在 selector 或者服务地址的内容有变化，重新创建；只是列表对象换了而内容相同时沿用原来的环
+        if (selector == null || !selector.matches(serviceInstances)) {
+            selector = new ConsistentHashSelector(serviceInstances, REPLICA_NUMBER);
+            selectors.put(rpcServiceName, selector);
         }
 
-        return selector.select(rpcServiceName);
+        return selector.select(hashKey(rpcRequest));
     }
 
     /**
-     * 负载均衡选择器
+     * 由配置的参数拼出哈希键，没有可用的参数时使用接口名和方法名
      */
-    static class ConsistentHashSelector {
-        // 虚节点
-        private final TreeMap<Long, String> virtualInvokers;
-        // 哈希码
-        private final int identityHashCode;
-        // 服务地址，每个节点对应生成的虚节点个数，哈希码
-        ConsistentHashSelector(List<String> invokers, int replicaNumber, int identityHashCode) {
+    static String hashKey(RpcRequest rpcRequest) {
+        Object[] parameters = rpcRequest.getParameters();
+        StringBuilder key = new StringBuilder();
+        for (int index : ARGUMENT_INDEXES) {
+            if (parameters != null && index < parameters.length) {
+                appendArgument(key, parameters[index]);
+            }
+        }
+        if (key.length() == 0) {
+            key.append(rpcRequest.getInterfaceName()).append('#').append(rpcRequest.getMethodName());
+        }
+        return key.toString();
+    }
+
+    private static void appendArgument(StringBuilder key, Object argument) {
+        if (argument == null) {
+            key.append("null");
+        } else if (argument.getClass().isArray()) {
+            // 数组的 toString() 是 identity hash，按内容拼接
+            key.append(Arrays.deepToString(new Object[]{argument}));
+        } else {
+            IDENTITY_TO_STRING.get(argument.getClass());
+            key.append(argument);
+        }
+    }
 
-            this.virtualInvokers = new TreeMap<>();
-            this.identityHashCode = identityHashCode;
+    /**
+     * 解析参数下标，格式为逗号分隔的非负整数。格式不对时打印错误并使用第一个参数，不会因为配置错误导致每次调用都失败
+     */
+    static int[] parseArgumentIndexes(String arguments) {
+        try {
+            int[] indexes = Arrays.stream(arguments.split(","))
+                    .map(String::trim)
+                    .filter(argument -> !argument.isEmpty())
+                    .mapToInt(Integer::parseInt)
+                    .toArray();
+            for (int index : indexes) {
+                if (index < 0) {
+                    throw new NumberFormatException("negative index " + index);
+                }
+            }
+            return indexes;
+        } catch (NumberFormatException e) {
+            log.error("invalid value [{}] of config [{}], expected non-negative argument indexes separated by ',', use default [0]",
+                    arguments, RpcConfigEnum.CONSISTENT_HASH_ARGUMENTS.getPropertyValue());
+            return new int[]{0};
+        }
+    }
 
+    /**
+     * 负载均衡选择器
+     */
+    static class ConsistentHashSelector {
+        // 虚节点的哈希值，升序
+        private final int[] ring;
+        // ring[i] 对应的服务实例
+        private final ServiceInstance[] invokers;
+        // 创建时的服务地址，用于判断地址是否变化
+        private final Set<String> addresses;
+        // 最近一次匹配过的实例列表对象，同一个列表对象再次传入时不必比较内容
+        private volatile List<ServiceInstance> lastMatched;
+
+        // 服务实例，每个节点对应生成的虚节点个数
+        ConsistentHashSelector(List<ServiceInstance> invokers, int replicaNumber) {
+            this.addresses = new HashSet<>();
+            for (ServiceInstance invoker : invokers) {
+                addresses.add(invoker.getAddress());
+            }
+            this.lastMatched = invokers;
+            int perInvoker = Math.max(1, replicaNumber / 4) * 4;
+            // 高 32 位是哈希值，低 32 位是地址下标，排序后哈希值和地址一一对应
+            long[] entries = new long[invokers.size() * perInvoker];
+            int n = 0;
             // A: 生成A1、A2、A3虚节点, 对这些虚节点的hash()都会映射到A上
-            for (String invoker : invokers) {
-                for (int i = 0; i < replicaNumber / 4; i++) {
-                    byte[] digest = md5(invoker + i);
+            for (int index = 0; index < invokers.size(); index++) {
+                String invoker = invokers.get(index).getAddress();
+                for (int i = 0; i < perInvoker / 4; i++) {
+                    // 一次 128 位的哈希切成 4 个 32 位的虚节点
+                    ByteBuffer digest = ByteBuffer.wrap(MURMUR3_128.hashString(invoker + i, StandardCharsets.UTF_8).asBytes())
+                            .order(ByteOrder.LITTLE_ENDIAN);
                     for (int h = 0; h < 4; h++) {
-                        long m = hash(digest, h);
-                        virtualInvokers.put(m, invoker);
+                        entries[n++] = (long) digest.getInt(h * 4) << 32 | index;
                     }
                 }
             }
-
-        }
-
-        static byte[] md5(String key) {
-            MessageDigest md = null;
-
-            try {
-                md = MessageDigest.getInstance("md5");
-                byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
-                md.update(bytes);
-            } catch (NoSuchAlgorithmException e) {
-                log.error("An encryption algorithm that does not exist is used: ", e);
-                e.printStackTrace();
+            Arrays.sort(entries);
+            this.ring = new int[entries.length];
+            this.invokers = new ServiceInstance[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                ring[i] = (int) (entries[i] >> 32);
+                this.invokers[i] = invokers.get((int) entries[i]);
             }
-
-            return md.digest();
         }
 
-        static long hash(byte[] digest, int idx) {
-            return ((long) (digest[3 + idx * 4] & 255) << 24 | (long) (digest[2 + idx * 4] & 255) << 16 | (long) (digest[1 + idx * 4] & 255) << 8 | (long) (digest[idx * 4] & 255)) & 4294967295L;
+        boolean matches(List<ServiceInstance> serviceInstances) {
+            if (serviceInstances == lastMatched) {
+                return true;
+            }
+            if (serviceInstances.size() != addresses.size()) {
+                return false;
+            }
+            for (ServiceInstance serviceInstance : serviceInstances) {
+                if (!addresses.contains(serviceInstance.getAddress())) {
+                    return false;
+                }
+            }
+            lastMatched = serviceInstances;
+            return true;
         }
 
-        public String select(String rpcServiceName) {
-            byte[] digest  = md5(rpcServiceName);
-            return selectForKey(hash(digest, 0));
+        public ServiceInstance select(String key) {
+            HashCode hashCode = MURMUR3_32.hashString(key, StandardCharsets.UTF_8);
+            return selectForKey(hashCode.asInt());
         }
 
         /**
-         * 找出所有 >= hashCode中 最小的那一个
+         * 找出所有 >= hashCode中 最小的那一个，没有时回到环的起点
          * @param hashCode
          * @return
          */
-        public String selectForKey(long hashCode) {
-            // 获取一个子集。其所有对象的 key 的值大于等于 fromKey
-            Map.Entry<Long, String> entry = virtualInvokers.tailMap(hashCode, true).firstEntry();
-
-            if (entry == null) {
-                entry = virtualInvokers.firstEntry();
+        public ServiceInstance selectForKey(int hashCode) {
+            int index = Arrays.binarySearch(ring, hashCode);
+            if (index < 0) {
+                index = -index - 1;
             }
-
-            return entry.getValue();
+            if (index == ring.length) {
+                index = 0;
+            }
+            return invokers[index];
         }
 
     }
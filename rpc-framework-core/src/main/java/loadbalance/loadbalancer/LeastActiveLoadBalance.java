@@ -0,0 +1,44 @@
+package loadbalance.loadbalancer;
+
+import loadbalance.AbstractLoadBalance;
+import loadbalance.EndpointStats;
+import registry.ServiceInstance;
+import remoting.dto.RpcRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 最少活跃数负载均衡：选择正在处理的请求最少的地址，处理得慢的服务端积压的请求多，自然分到的请求少。
+ * 活跃数相同的地址中随机选择一个。不健康的地址（{@link EndpointStats#isHealthy()}）只在全都不健康时才参与选择
+ * @author Chen
+ * @create 2026-10-17 20:20
+ */
+public class LeastActiveLoadBalance extends AbstractLoadBalance {
+    @Override
+    protected ServiceInstance doSelect(List<ServiceInstance> serviceInstances, RpcRequest rpcRequest) {
+        ServiceInstance selected = null;
+        int leastActive = Integer.MAX_VALUE;
+        int leastCount = 0;
+        boolean selectedHealthy = false;
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            EndpointStats stats = EndpointStats.of(serviceInstance.getAddress());
+            boolean healthy = stats.isHealthy();
+            // 有健康的地址时不选不健康的地址，全都不健康时照常比较
+            if (selectedHealthy && !healthy) {
+                continue;
+            }
+            int active = stats.getActive();
+            if (healthy && !selectedHealthy || active < leastActive) {
+                selected = serviceInstance;
+                leastActive = active;
+                leastCount = 1;
+                selectedHealthy = healthy;
+            } else if (active == leastActive && ThreadLocalRandom.current().nextInt(++leastCount) == 0) {
+                // 蓄水池抽样，活跃数相同的地址被选中的概率相同
+                selected = serviceInstance;
+            }
+        }
+        return selected;
+    }
+}
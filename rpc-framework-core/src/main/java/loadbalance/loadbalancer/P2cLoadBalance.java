@@ -0,0 +1,57 @@
+package loadbalance.loadbalancer;
+
+import loadbalance.AbstractLoadBalance;
+import loadbalance.EndpointStats;
+import registry.ServiceInstance;
+import remoting.dto.RpcRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * power of two choices 负载均衡：随机取两个不同的地址，选择 peak EWMA 负载较小的一个。
+ * 只比较两个地址，选择的开销与地址数无关，也不会让所有客户端同时涌向同一个最空闲的地址。
+ * 两个地址中只有一个健康时选健康的；两个都不健康时从随机位置找一个健康的地址，全都不健康时才在两者中比较负载
+ * @author Chen
+ * @create 2026-10-17 20:30
+ */
+public class P2cLoadBalance extends AbstractLoadBalance {
+    @Override
+    protected ServiceInstance doSelect(List<ServiceInstance> serviceInstances, RpcRequest rpcRequest) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int size = serviceInstances.size();
+        int first = random.nextInt(size);
+        // 第二个下标从其余 size - 1 个中选，保证两个不同
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = serviceInstances.get(first);
+        ServiceInstance b = serviceInstances.get(second);
+        EndpointStats statsA = EndpointStats.of(a.getAddress());
+        EndpointStats statsB = EndpointStats.of(b.getAddress());
+        boolean healthyA = statsA.isHealthy();
+        boolean healthyB = statsB.isHealthy();
+        if (healthyA != healthyB) {
+            return healthyA ? a : b;
+        }
+        if (!healthyA) {
+            ServiceInstance healthy = findHealthy(serviceInstances, first);
+            if (healthy != null) {
+                return healthy;
+            }
+        }
+        return statsA.getCost() <= statsB.getCost() ? a : b;
+    }
+
+    private static ServiceInstance findHealthy(List<ServiceInstance> serviceInstances, int start) {
+        int size = serviceInstances.size();
+        for (int i = 1; i < size; i++) {
+            ServiceInstance serviceInstance = serviceInstances.get((start + i) % size);
+            if (EndpointStats.of(serviceInstance.getAddress()).isHealthy()) {
+                return serviceInstance;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,43 @@
+package loadbalance.loadbalancer;
+
+import loadbalance.AbstractLoadBalance;
+import loadbalance.EndpointStats;
+import registry.ServiceInstance;
+import remoting.dto.RpcRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * peak EWMA 负载均衡：选择 {@link EndpointStats#getCost()} 最小，即新请求预计等待时间最短的地址，
+ * 服务端变慢或 GC 停顿时立即少分请求。负载相同的地址中随机选择一个，不健康的地址只在全都不健康时才参与选择
+ * @author Chen
+ * @create 2026-10-17 20:25
+ */
+public class PeakEwmaLoadBalance extends AbstractLoadBalance {
+    @Override
+    protected ServiceInstance doSelect(List<ServiceInstance> serviceInstances, RpcRequest rpcRequest) {
+        ServiceInstance selected = null;
+        double leastCost = Double.MAX_VALUE;
+        int leastCount = 0;
+        boolean selectedHealthy = false;
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            EndpointStats stats = EndpointStats.of(serviceInstance.getAddress());
+            boolean healthy = stats.isHealthy();
+            // 有健康的地址时不选不健康的地址，全都不健康时照常比较
+            if (selectedHealthy && !healthy) {
+                continue;
+            }
+            double cost = stats.getCost();
+            if (healthy && !selectedHealthy || cost < leastCost) {
+                selected = serviceInstance;
+                leastCost = cost;
+                leastCount = 1;
+                selectedHealthy = healthy;
+            } else if (cost == leastCost && ThreadLocalRandom.current().nextInt(++leastCount) == 0) {
+                selected = serviceInstance;
+            }
+        }
+        return selected;
+    }
+}
@@ -1,19 +1,53 @@
 package loadbalance.loadbalancer;
 
 import loadbalance.AbstractLoadBalance;
+import registry.ServiceInstance;
+import remoting.dto.RpcRequest;
 
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * 随机负载均衡策略的实现
+ * 随机负载均衡策略的实现：按权重随机，权重都相同时等概率随机。权重考虑了服务实例的预热，
+ * 权重为 0 的实例不会被选中，所有实例的权重都为 0 时返回 null
  * @author Chen
  * @create 2021-03-27 21:11
  */
 public class RandomLoadBalance extends AbstractLoadBalance {
+
+    @Override
+    protected boolean isWeighted() {
+        return true;
+    }
+
     @Override
-    protected String doSelect(List<String> serviceAddresses, String rpcServiceName) {
-        Random random = new Random();
-        return serviceAddresses.get(random.nextInt(serviceAddresses.size()));
+    protected ServiceInstance doSelect(List<ServiceInstance> serviceInstances, RpcRequest rpcRequest) {
+        int size = serviceInstances.size();
+        int[] weights = new int[size];
+        int totalWeight = 0;
+        boolean sameWeight = true;
+        for (int i = 0; i < size; i++) {
+            int weight = serviceInstances.get(i).getWarmWeight();
+            weights[i] = weight;
+            totalWeight += weight;
+            if (sameWeight && weight != weights[0]) {
+                sameWeight = false;
+            }
+        }
+        if (totalWeight <= 0) {
+            return null;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (!sameWeight) {
+            // 在 [0, totalWeight) 中取随机数，落在哪个实例的权重区间就选择哪个，权重为 0 的实例区间为空
+            int offset = random.nextInt(totalWeight);
+            for (int i = 0; i < size; i++) {
+                offset -= weights[i];
+                if (offset < 0) {
+                    return serviceInstances.get(i);
+                }
+            }
+        }
+        return serviceInstances.get(random.nextInt(size));
     }
 }
@@ -0,0 +1,76 @@
+package loadbalance.loadbalancer;
+
+import loadbalance.AbstractLoadBalance;
+import registry.ServiceInstance;
+import remoting.dto.RpcRequest;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 平滑加权轮询（同 nginx）：每次选择时每个实例的 current 加上自己的权重，选出 current 最大的实例，再减去总权重。
+ * 权重 5、1、1 时选择顺序为 a a b a c a a，而不是 a a a a a b c，权重大的实例不会连续收到一串请求。
+ * 权重考虑了服务实例的预热，权重为 0 的实例不参与轮询，所有实例的权重都为 0 时返回 null
+ * @author Chen
+ * @create 2026-10-17 21:10
+ */
+public class RoundRobinLoadBalance extends AbstractLoadBalance {
+
+    /**
+     * key: 服务名
+     * value: 该服务每个实例的 current
+     */
+    private final Map<String, Map<String, long[]>> serviceStates = new ConcurrentHashMap<>();
+
+    @Override
+    protected boolean isWeighted() {
+        return true;
+    }
+
+    @Override
+    protected ServiceInstance doSelect(List<ServiceInstance> serviceInstances, RpcRequest rpcRequest) {
+        String rpcServiceName = rpcRequest.getRpcServiceName();
+        Map<String, long[]> currents = serviceStates.computeIfAbsent(rpcServiceName, key -> new HashMap<>());
+        synchronized (currents) {
+            long totalWeight = 0;
+            int weighted = 0;
+            long maxCurrent = Long.MIN_VALUE;
+            ServiceInstance selected = null;
+            long[] selectedCurrent = null;
+            for (ServiceInstance serviceInstance : serviceInstances) {
+                int weight = serviceInstance.getWarmWeight();
+                if (weight <= 0) {
+                    continue;
+                }
+                long[] current = currents.computeIfAbsent(serviceInstance.getAddress(), key -> new long[1]);
+                current[0] += weight;
+                totalWeight += weight;
+                weighted++;
+                if (current[0] > maxCurrent) {
+                    maxCurrent = current[0];
+                    selected = serviceInstance;
+                    selectedCurrent = current;
+                }
+            }
+            // 实例下线或权重变为 0 后移除它的 current
+            if (currents.size() > weighted) {
+                Set<String> addresses = new HashSet<>();
+                for (ServiceInstance serviceInstance : serviceInstances) {
+                    if (serviceInstance.getWarmWeight() > 0) {
+                        addresses.add(serviceInstance.getAddress());
+                    }
+                }
+                currents.keySet().retainAll(addresses);
+            }
+            if (selected == null) {
+                return null;
+            }
+            selectedCurrent[0] -= totalWeight;
+            return selected;
+        }
+    }
+}
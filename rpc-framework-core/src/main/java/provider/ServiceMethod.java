@@ -0,0 +1,87 @@
+package provider;
+
+import exception.RpcException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * 服务端已发布的一个服务方法，发布服务时为每个 (服务, 方法签名) 分配一个整数 id。
+ * 客户端学到 id 后只发送 id，服务端按 id 直接在数组中找到方法，不再拼接服务名、反射查找方法。
+ * 发布时同时构建绑定了服务对象的 MethodHandle，调用时不再经过 Method.invoke 的访问检查
+ * @author Chen
+ * @create 2026-10-17 14:30
+ */
+@Getter
+@ToString
+public class ServiceMethod {
+    private final int id;
+    // rpc服务名(interface name + group + version)
+    private final String rpcServiceName;
+    @ToString.Exclude
+    private final Object service;
+    private final Method method;
+    /**
+     * 绑定了服务对象、把参数数组展开为各个参数的 MethodHandle，类型统一为 (Object[])Object
+     */
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    private final MethodHandle invoker;
+
+    public ServiceMethod(int id, String rpcServiceName, Object service, Method method) {
+        this.id = id;
+        this.rpcServiceName = rpcServiceName;
+        this.service = service;
+        this.method = method;
+        this.invoker = createInvoker(service, method);
+    }
+
+    private static MethodHandle createInvoker(Object service, Method method) {
+        try {
+            // 服务接口或实现类不是 public 时也能调用
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method)
+                    .bindTo(service)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new RpcException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 调用服务方法
+     * @param parameters 参数列表，无参方法可以为 null
+     * @return 方法的返回值，void 方法返回 null
+     */
+    public Object invoke(Object[] parameters) {
+        try {
+            return (Object) invoker.invokeExact(parameters);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RpcException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 方法签名：rpc服务名#方法名(参数类型,...)，客户端和服务端按相同规则生成
+     */
+    public static String signature(String rpcServiceName, String methodName, Class<?>[] paramTypes) {
+        StringBuilder sb = new StringBuilder(rpcServiceName).append('#').append(methodName).append('(');
+        if (paramTypes != null) {
+            for (int i = 0; i < paramTypes.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(paramTypes[i].getName());
+            }
+        }
+        return sb.append(')').toString();
+    }
+}
@@ -24,6 +24,18 @@ public interface ServiceProvider {
      */
     Object getService(RpcServiceProperties rpcServiceProperties);
 
+    /**
+     * @param methodId 发布服务时分配的方法 id
+     * @return 对应的服务方法，id 未知时返回 null
+     */
+    ServiceMethod getServiceMethod(int methodId);
+
+    /**
+     * @param signature 方法签名，见 {@link ServiceMethod#signature}
+     * @return 对应的服务方法，未发布时返回 null
+     */
+    ServiceMethod getServiceMethod(String signature);
+
     /**
      * @param service 服务对象
      * @param rpcServiceProperties 服务相关的属性
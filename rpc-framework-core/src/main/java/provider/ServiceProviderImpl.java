@@ -1,16 +1,23 @@
 package provider;
 
 import entity.RpcServiceProperties;
+import enums.RpcConfigEnum;
 import enums.RpcErrorMessageEnum;
 import exception.RpcException;
 import extension.ExtensionLoader;
+import factory.SingletonFactory;
 import lombok.extern.slf4j.Slf4j;
+import registry.ServiceInstance;
 import registry.ServiceRegistry;
 import remoting.transport.netty.server.NettyRpcServer;
+import remoting.transport.netty.server.RequestDispatcher;
+import utils.RpcConfigUtil;
 
 import java.net.InetAddress;
+import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -28,23 +35,45 @@ public class ServiceProviderImpl implements ServiceProvider {
      */
     private final Map<String, Object> serviceMap;
     private final Set<String> registeredService;
+    /**
+     * 按方法 id 下标存放的服务方法，下标 0 不用(0 表示请求使用完整形式)。
+     * 只在发布服务时写入(写时复制)，请求处理时无锁读取
+     */
+    private volatile ServiceMethod[] serviceMethods;
+    /**
+     * key: 方法签名
+     * value: 服务方法
+     */
+    private final Map<String, ServiceMethod> signatureMap;
     // 注册中心相关
     private final ServiceRegistry serviceRegistry;
 
     public ServiceProviderImpl() {
         serviceMap = new ConcurrentHashMap<>();
         registeredService = ConcurrentHashMap.newKeySet();
+        serviceMethods = new ServiceMethod[1];
+        signatureMap = new ConcurrentHashMap<>();
         serviceRegistry = ExtensionLoader.getExtensionLoader(ServiceRegistry.class).getExtension("zk");
     }
 
     @Override
-    public void addService(Object service, Class<?> serviceClass, RpcServiceProperties rpcServiceProperties) {
+    public synchronized void addService(Object service, Class<?> serviceClass, RpcServiceProperties rpcServiceProperties) {
         String rpcServiceName = rpcServiceProperties.toRpcServiceName();
         if (registeredService.contains(rpcServiceName)) {
             return ;
         }
         registeredService.add(rpcServiceName);
         serviceMap.put(rpcServiceName, service);
+        // 为服务接口的每个方法分配 id
+        Method[] methods = serviceClass.getMethods();
+        ServiceMethod[] newServiceMethods = Arrays.copyOf(serviceMethods, serviceMethods.length + methods.length);
+        for (int i = 0; i < methods.length; i++) {
+            int id = serviceMethods.length + i;
+            ServiceMethod serviceMethod = new ServiceMethod(id, rpcServiceName, service, methods[i]);
+            newServiceMethods[id] = serviceMethod;
+            signatureMap.put(ServiceMethod.signature(rpcServiceName, methods[i].getName(), methods[i].getParameterTypes()), serviceMethod);
+        }
+        serviceMethods = newServiceMethods;
         log.info("Add service: {} and interfaces:{}", rpcServiceName, service.getClass().getInterfaces());
     }
 
@@ -57,6 +86,17 @@ public class ServiceProviderImpl implements ServiceProvider {
         return service;
     }
 
+    @Override
+    public ServiceMethod getServiceMethod(int methodId) {
+        ServiceMethod[] methods = serviceMethods;
+        return methodId > 0 && methodId < methods.length ? methods[methodId] : null;
+    }
+
+    @Override
+    public ServiceMethod getServiceMethod(String signature) {
+        return signatureMap.get(signature);
+    }
+
     @Override
     public void publishService(Object service) {
         this.publishService(service, RpcServiceProperties.builder().group("").version("").build());
@@ -74,8 +114,16 @@ public class ServiceProviderImpl implements ServiceProvider {
             rpcServiceProperties.setServiceName(serviceName);
             // 添加服务
             this.addService(service, serviceRelatedInterface, rpcServiceProperties);
-            // 向服务中心(zk)注册服务
-            serviceRegistry.registerService(rpcServiceProperties.toRpcServiceName(), new InetSocketAddress(host, NettyRpcServer.PORT));
+            // 向服务中心(zk)注册服务，同时发布权重、发布时间、预热时间、容量和可用区，客户端据此按权重和可用区分配请求
+            ServiceInstance serviceInstance = ServiceInstance.builder()
+                    .address(ServiceInstance.toAddress(new InetSocketAddress(host, NettyRpcServer.PORT)))
+                    .weight(RpcConfigUtil.getInt(RpcConfigEnum.SERVER_WEIGHT, ServiceInstance.DEFAULT_WEIGHT))
+                    .timestamp(System.currentTimeMillis())
+                    .warmup(RpcConfigUtil.getLong(RpcConfigEnum.SERVER_WARMUP, 60_000))
+                    .capacity(SingletonFactory.getInstance(RequestDispatcher.class).getCapacity())
+                    .zone(RpcConfigUtil.getString(RpcConfigEnum.ZONE, null))
+                    .build();
+            serviceRegistry.registerService(rpcServiceProperties.toRpcServiceName(), serviceInstance);
         } catch (UnknownHostException e) {
             log.error("occur exception when getHostAddress", e);
         }
@@ -0,0 +1,63 @@
+package proxy;
+
+import entity.RpcServiceProperties;
+import remoting.dto.RpcRequest;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 一个接口方法的请求模板：接口名、方法名、参数类型、group、version 和完整的服务名在创建代理时计算一次，
+ * 每次调用只需要填入参数。返回 CompletableFuture 的方法按异步调用处理
+ * @author Chen
+ * @create 2026-10-17 17:20
+ */
+public final class RequestTemplate {
+    private final String interfaceName;
+    private final String methodName;
+    private final Class<?>[] paramTypes;
+    private final String group;
+    private final String version;
+    private final String rpcServiceName;
+    // 方法返回 CompletableFuture 时为异步调用，直接返回传输层的 future，不阻塞调用线程
+    private final boolean async;
+    // 调用超时时间（毫秒），0 表示不超时
+    private final long timeout;
+    // 负载均衡策略，null 表示使用 rpc.loadbalance
+    private final String loadBalance;
+
+    public RequestTemplate(Method method, RpcServiceProperties rpcServiceProperties, long timeout, String loadBalance) {
+        this.interfaceName = method.getDeclaringClass().getName();
+        this.methodName = method.getName();
+        this.paramTypes = method.getParameterTypes();
+        this.group = rpcServiceProperties.getGroup();
+        this.version = rpcServiceProperties.getVersion();
+        this.rpcServiceName = RpcServiceProperties.builder().serviceName(interfaceName)
+                .version(version).group(group).build().toRpcServiceName();
+        this.async = CompletableFuture.class.equals(method.getReturnType());
+        this.timeout = timeout;
+        this.loadBalance = loadBalance;
+    }
+
+    public String getInterfaceName() {
+        return interfaceName;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public RpcRequest newRequest(Object[] parameters) {
+        RpcRequest rpcRequest = new RpcRequest();
+        rpcRequest.setInterfaceName(interfaceName);
+        rpcRequest.setMethodName(methodName);
+        rpcRequest.setParamTypes(paramTypes);
+        rpcRequest.setParameters(parameters);
+        rpcRequest.setGroup(group);
+        rpcRequest.setVersion(version);
+        rpcRequest.setRpcServiceName(rpcServiceName);
+        rpcRequest.setTimeout(timeout);
+        rpcRequest.setLoadBalance(loadBalance);
+        return rpcRequest;
+    }
+}
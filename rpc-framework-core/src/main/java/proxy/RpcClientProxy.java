@@ -1,20 +1,38 @@
 package proxy;
 
 import entity.RpcServiceProperties;
+import enums.RpcConfigEnum;
 import enums.RpcErrorMessageEnum;
 import enums.RpcResponseCodeEnum;
 import exception.RpcException;
 import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassInjector;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.MethodDelegation;
+import net.bytebuddy.matcher.ElementMatchers;
 import remoting.dto.RpcRequest;
 import remoting.dto.RpcResponse;
 import remoting.transport.RpcRequestTransport;
 import remoting.transport.netty.client.NettyRpcClient;
+import utils.RpcConfigUtil;
+import utils.ThreadPoolFactoryUtils;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
-import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * @author cyx
@@ -24,14 +42,59 @@ import java.util.concurrent.CompletableFuture;
 public class RpcClientProxy implements InvocationHandler {
 
     private static final String INTERFACE_NAME = "interfaceName";
+    private static final AtomicLong STUB_SEQUENCE = new AtomicLong();
+    public static final String PROXY_JDK = "jdk";
+    public static final String PROXY_BYTEBUDDY = "bytebuddy";
+    public static final String CALLBACK_SHARED = "shared";
+    public static final String CALLBACK_DIRECT = "direct";
 
     /**
      * 用于向服务器发送请求。有两种实现:socket和netty
      */
     private final RpcRequestTransport rpcRequestTransport;
     private final RpcServiceProperties rpcServiceProperties;
+    // 创建代理时就确定传输方式，调用时不再做 instanceof 判断
+    private final boolean nettyTransport;
+    /**
+     * JDK 代理下每个方法的请求模板
+     * key: 接口方法
+     * value: 请求模板
+     */
+    private final Map<Method, RequestTemplate> requestTemplates = new ConcurrentHashMap<>();
+    // 异步调用的回调在这个线程池上执行，为 null 时在 IO 线程上执行，回调中不能有阻塞操作
+    private final Executor callbackExecutor;
+    // 调用超时时间（毫秒），0 表示不超时
+    private long timeout = RpcConfigUtil.getLong(RpcConfigEnum.CLIENT_TIMEOUT, 10000);
+    /**
+     * 单个方法的超时时间，优先于 timeout
+     * key: 方法名
+     * value: 超时时间（毫秒）
+     */
+    private final Map<String, Long> methodTimeouts = new ConcurrentHashMap<>();
+    // 负载均衡策略，null 表示使用 rpc.loadbalance
+    private String loadBalance;
 
+    /**
+     * 异步调用的回调在 rpc.client.callback-executor 指定的地方执行
+     */
     public RpcClientProxy(RpcRequestTransport rpcRequestTransport, RpcServiceProperties rpcServiceProperties) {
+        this(rpcRequestTransport, rpcServiceProperties, callbackExecutor(RpcConfigUtil.getString(RpcConfigEnum.CLIENT_CALLBACK_EXECUTOR, CALLBACK_SHARED)));
+    }
+
+    /**
+     * @param callbackExecutor 执行异步调用回调的线程池，为 null 时在 IO 线程上执行
+     */
+    public RpcClientProxy(RpcRequestTransport rpcRequestTransport, RpcServiceProperties rpcServiceProperties, Executor callbackExecutor) {
+        this(rpcRequestTransport, rpcServiceProperties, callbackExecutor, rpcRequestTransport instanceof NettyRpcClient);
+    }
+
+    /**
+     * @param nettyTransport 传输层的 sendRpcRequest 是否像 {@link NettyRpcClient} 一样返回 CompletableFuture&lt;RpcResponse&gt;，
+     *                       性能测试据此用不经过网络的传输层替换 NettyRpcClient
+     */
+    RpcClientProxy(RpcRequestTransport rpcRequestTransport, RpcServiceProperties rpcServiceProperties, Executor callbackExecutor,
+                   boolean nettyTransport) {
+        this.callbackExecutor = callbackExecutor;
         this.rpcRequestTransport = rpcRequestTransport;
         if (rpcServiceProperties.getGroup() == null) {
             rpcServiceProperties.setGroup("");
@@ -40,11 +103,70 @@ public class RpcClientProxy implements InvocationHandler {
             rpcServiceProperties.setVersion("");
         }
         this.rpcServiceProperties = rpcServiceProperties;
+        this.nettyTransport = nettyTransport;
     }
 
     public RpcClientProxy(RpcRequestTransport rpcRequestTransport) {
         this.rpcRequestTransport = rpcRequestTransport;
         this.rpcServiceProperties = RpcServiceProperties.builder().group("").version("").build();
+        this.callbackExecutor = callbackExecutor(RpcConfigUtil.getString(RpcConfigEnum.CLIENT_CALLBACK_EXECUTOR, CALLBACK_SHARED));
+        this.nettyTransport = rpcRequestTransport instanceof NettyRpcClient;
+    }
+
+    /**
+     * @param name shared 或 direct，其他值打印错误并使用 shared
+     * @return 执行异步调用回调的线程池，direct 时为 null
+     */
+    public static Executor callbackExecutor(String name) {
+        if (CALLBACK_DIRECT.equalsIgnoreCase(name)) {
+            return null;
+        }
+        if (!CALLBACK_SHARED.equalsIgnoreCase(name)) {
+            log.error("invalid value [{}] of config [{}], use default [{}]", name,
+                    RpcConfigEnum.CLIENT_CALLBACK_EXECUTOR.getPropertyValue(), CALLBACK_SHARED);
+        }
+        return SharedCallbackExecutor.INSTANCE;
+    }
+
+    /**
+     * 客户端共用的回调线程池，第一次使用时创建。线程为守护线程，不会阻止 JVM 退出；
+     * 队列满时回调在完成 future 的线程上执行，而不是被丢弃导致调用方永远等不到结果
+     */
+    private static final class SharedCallbackExecutor {
+        private static final String THREAD_NAME_PREFIX = "rpc-client-callback";
+        private static final int THREADS = Runtime.getRuntime().availableProcessors();
+        private static final Executor INSTANCE = ThreadPoolFactoryUtils.registerThreadPoolIfAbsent(THREAD_NAME_PREFIX,
+                new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1024),
+                        ThreadPoolFactoryUtils.createThreadFactory(THREAD_NAME_PREFIX, true), new ThreadPoolExecutor.CallerRunsPolicy()));
+    }
+
+    /**
+     * 设置调用超时时间，必须在获取代理对象之前调用
+     * @param timeout 超时时间（毫秒），0 表示不超时
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * 设置某个方法的调用超时时间，必须在获取代理对象之前调用
+     * @param methodName 方法名，同名的重载方法使用同一个超时时间
+     * @param timeout    超时时间（毫秒），0 表示不超时
+     */
+    public void setMethodTimeout(String methodName, long timeout) {
+        methodTimeouts.put(methodName, timeout);
+    }
+
+    /**
+     * 设置负载均衡策略，必须在获取代理对象之前调用
+     * @param loadBalance 负载均衡策略的扩展名：random、consistenthash、leastactive、peakewma、p2c
+     */
+    public void setLoadBalance(String loadBalance) {
+        this.loadBalance = loadBalance;
+    }
+
+    private RequestTemplate newRequestTemplate(Method method) {
+        return new RequestTemplate(method, rpcServiceProperties, methodTimeouts.getOrDefault(method.getName(), timeout), loadBalance);
     }
 
     /**
@@ -62,7 +184,60 @@ public class RpcClientProxy implements InvocationHandler {
     }
 
     /**
-     *
+     * 按代理类型获取代理对象
+     * @param clazz     服务接口.class
+     * @param proxyType jdk：JDK 动态代理；bytebuddy：字节码生成的 stub
+     */
+    public <T> T getProxy(Class<T> clazz, String proxyType) {
+        if (PROXY_BYTEBUDDY.equals(proxyType)) {
+            return getStub(clazz);
+        }
+        return getProxy(clazz);
+    }
+
+    /**
+     * 用 ByteBuddy 为接口生成一个实现类：每个抽象方法委托给各自的 {@link StubMethodInterceptor}，
+     * 请求模板在生成时就计算好；toString、hashCode、equals 以及 default 方法在本地执行，不会发起远程调用。
+     * <p>
+     * public 接口的实现类定义在一个新的子类加载器中；非 public 的接口只能由同一个类加载器、同一个包中的类实现，
+     * 实现类注入接口的类加载器，当前 JDK 不允许注入时抛出 IllegalArgumentException
+     * @param clazz 服务接口.class
+     */
+    public <T> T getStub(Class<T> clazz) {
+        // 同一个接口可能生成多个 stub（每个 RpcClientProxy 一个），注入同一个类加载器时类名不能重复
+        DynamicType.Builder<Object> builder = new ByteBuddy()
+                .subclass(Object.class)
+                .name(clazz.getName() + "$RpcStub$" + STUB_SEQUENCE.incrementAndGet())
+                .implement(clazz);
+        for (Method method : clazz.getMethods()) {
+            if (Modifier.isAbstract(method.getModifiers())) {
+                StubMethodInterceptor interceptor = new StubMethodInterceptor(this, newRequestTemplate(method));
+                builder = builder.method(ElementMatchers.is(method)).intercept(MethodDelegation.to(interceptor));
+            }
+        }
+        try {
+            Class<?> stubClass = builder.make()
+                    .load(clazz.getClassLoader(), classLoadingStrategy(clazz))
+                    .getLoaded();
+            return clazz.cast(stubClass.getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new RpcException("create stub for " + clazz.getName() + " fail", e);
+        }
+    }
+
+    private static ClassLoadingStrategy<ClassLoader> classLoadingStrategy(Class<?> clazz) {
+        if (Modifier.isPublic(clazz.getModifiers())) {
+            return ClassLoadingStrategy.Default.WRAPPER;
+        }
+        if (ClassInjector.UsingReflection.isAvailable()) {
+            return ClassLoadingStrategy.Default.INJECTION;
+        }
+        throw new IllegalArgumentException("create stub for " + clazz.getName() + " fail: the interface is not public and "
+                + "classes can not be injected into its class loader on this JDK, make it public or use rpc.proxy=jdk");
+    }
+
+    /**
+     * toString、hashCode、equals 在本地执行，与字节码 stub 的行为相同，其它方法发起远程调用
      * @param proxy 通过getProxy()方法获得的对象
      * @param method
      * @param args
@@ -71,27 +246,91 @@ public class RpcClientProxy implements InvocationHandler {
      */
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        log.info("invoked method: [{}]", method.getName());
-        RpcRequest rpcRequest = RpcRequest.builder()
-                .methodName(method.getName()) // 方法名
-                .parameters(args)             // 参数列表
-                .interfaceName(method.getDeclaringClass().getName())              // 方法所属的接口名
-                .requestId(UUID.randomUUID().toString())
-                .group(rpcServiceProperties.getGroup())
-                .version(rpcServiceProperties.getVersion())
-                .build();
+        if (method.getDeclaringClass() == Object.class) {
+            return invokeObjectMethod(proxy, method, args);
+        }
+        log.debug("invoked method: [{}]", method.getName());
+        RequestTemplate requestTemplate = requestTemplates.get(method);
+        if (requestTemplate == null) {
+            requestTemplate = newRequestTemplate(method);
+            requestTemplates.putIfAbsent(method, requestTemplate);
+        }
+        return invoke(requestTemplate, args);
+    }
 
-        RpcResponse<Object> rpcResponse = null;
-        if (rpcRequestTransport instanceof NettyRpcClient) {
-            CompletableFuture<RpcResponse<Object>> completableFuture = (CompletableFuture<RpcResponse<Object>>) rpcRequestTransport.sendRpcRequest(rpcRequest);
-            rpcResponse = completableFuture.get();
+    // 代理对象只会把 equals、hashCode、toString 这三个 Object 方法分派到 invoke
+    private static Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return proxy.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+            default:
+                throw new UnsupportedOperationException(method.toString());
         }
-//        if (rpcRequestTransport instanceof SocketRpcClient) {
-//            rpcResponse = (RpcResponse<Object>) rpcRequestTransport.sendRpcRequest(rpcRequest);
-//        }
+    }
 
-        this.check(rpcResponse, rpcRequest);
-        return rpcResponse.getData();
+    /**
+     * 按请求模板构造请求并发送，JDK 代理和字节码 stub 共用。
+     * 异步方法直接返回结果 future；同步方法等待结果，调用失败时抛出原始的 RuntimeException，
+     * 受检异常（例如连接关闭时的 IOException）和等待时被中断都包装成 RpcException，两种代理抛出的异常相同
+     * @param requestTemplate 方法对应的请求模板
+     * @param args            参数列表
+     * @return 远程方法的返回值，异步方法返回 CompletableFuture
+     */
+    public Object invoke(RequestTemplate requestTemplate, Object[] args) {
+        RpcRequest rpcRequest = requestTemplate.newRequest(args);
+        if (requestTemplate.isAsync()) {
+            return sendAsync(rpcRequest, callbackExecutor);
+        }
+        try {
+            return sendAsync(rpcRequest, null).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RpcException(RpcErrorMessageEnum.SERVICE_INVOCATION_FAILURE.getMessage() + ":"
+                    + INTERFACE_NAME + ":" + rpcRequest.getInterfaceName(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RpcException(RpcErrorMessageEnum.SERVICE_INVOCATION_FAILURE.getMessage() + ":"
+                    + INTERFACE_NAME + ":" + rpcRequest.getInterfaceName() + " interrupted", e);
+        }
+    }
+
+    /**
+     * 发送请求，在响应到达后的回调中检查响应并取出结果，不阻塞调用线程
+     * @param executor 执行回调的线程池，为 null 时在完成 future 的 IO 线程上执行
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Object> sendAsync(RpcRequest rpcRequest, Executor executor) {
+        if (!nettyTransport) {
+//            if (rpcRequestTransport instanceof SocketRpcClient) {
+//                rpcResponse = (RpcResponse<Object>) rpcRequestTransport.sendRpcRequest(rpcRequest);
+//            }
+            CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new RpcException(RpcErrorMessageEnum.SERVICE_INVOCATION_FAILURE, INTERFACE_NAME + ":" + rpcRequest.getInterfaceName()));
+            return failed;
+        }
+        CompletableFuture<RpcResponse<Object>> completableFuture;
+        try {
+            completableFuture = (CompletableFuture<RpcResponse<Object>>) rpcRequestTransport.sendRpcRequest(rpcRequest);
+        } catch (RuntimeException e) {
+            // 服务发现、建立连接失败时也通过 future 通知异步调用方
+            completableFuture = new CompletableFuture<>();
+            completableFuture.completeExceptionally(e);
+        }
+        Function<RpcResponse<Object>, Object> checkAndGet = rpcResponse -> {
+            this.check(rpcResponse, rpcRequest);
+            return rpcResponse.getData();
+        };
+        return executor == null ? completableFuture.thenApply(checkAndGet) : completableFuture.thenApplyAsync(checkAndGet, executor);
     }
 
     // 检查服务调用是否成功
@@ -100,10 +339,15 @@ public class RpcClientProxy implements InvocationHandler {
             throw new RpcException(RpcErrorMessageEnum.SERVICE_INVOCATION_FAILURE, INTERFACE_NAME + ":" + rpcRequest.getInterfaceName());
         }
 
-        if (!rpcRequest.getRequestId().equals(rpcResponse.getRequestId())) {
+        // v2 协议由 header 中的 requestId 关联请求和响应，请求体中没有 requestId
+        if (rpcRequest.getRequestId() != null && !rpcRequest.getRequestId().equals(rpcResponse.getRequestId())) {
             throw new RpcException(RpcErrorMessageEnum.REQUEST_NOT_MATCH_RESPONSE, INTERFACE_NAME + ":" + rpcRequest.getInterfaceName());
         }
 
+        if (Integer.valueOf(RpcResponseCodeEnum.SERVICE_CAN_NOT_BE_FOUND.getCode()).equals(rpcResponse.getCode())) {
+            throw new RpcException(RpcErrorMessageEnum.SERVICE_CAN_NOT_BE_FOUND,
+                    rpcRequest.getRpcServiceName() + "#" + rpcRequest.getMethodName());
+        }
         if (rpcResponse.getCode() == null || !rpcResponse.getCode().equals(RpcResponseCodeEnum.SUCCESS.getCode())) {
             throw new RpcException(RpcErrorMessageEnum.SERVICE_INVOCATION_FAILURE, INTERFACE_NAME + ":" + rpcRequest.getInterfaceName());
         }
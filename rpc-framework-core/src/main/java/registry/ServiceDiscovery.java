@@ -1,16 +1,31 @@
 package registry;
 
+import extension.SPI;
+import remoting.dto.RpcRequest;
+
 import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * @author Chen
  * @create 2021-03-26 22:27
  */
+@SPI
 public interface ServiceDiscovery {
     /**
-     * 根据服务名 获取远程服务地址
-     * @param rpcServiceName 完整的服务名称（class name+group+version）
+     * 根据请求的服务名 获取远程服务地址
+     * @param rpcRequest 请求，负载均衡可以据此选择地址
      * @return 远程服务地址
      */
-    InetSocketAddress lookupService(String rpcServiceName);
+    InetSocketAddress lookupService(RpcRequest rpcRequest);
+
+    /**
+     * 获取服务的所有地址，用于客户端预先建立连接
+     * @param rpcServiceName 完整的服务名称（class name+group+version）
+     * @return 远程服务地址列表，不支持时返回空列表
+     */
+    default List<InetSocketAddress> lookupAllServices(String rpcServiceName) {
+        return Collections.emptyList();
+    }
 }
@@ -0,0 +1,138 @@
+package registry;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 注册中心中的一个服务实例：地址和服务提供方发布的元数据。
+ * <p>
+ * 地址 host:port 是注册中心中的子节点名，元数据以 key=value 的行写在节点的数据中，
+ * 不认识的 key 直接忽略，缺少的 key 使用默认值，新旧版本的服务提供方和客户端可以混用
+ * @author Chen
+ * @create 2026-10-17 20:50
+ */
+@Getter
+@ToString
+public final class ServiceInstance {
+
+    public static final int DEFAULT_WEIGHT = 100;
+
+    // host:port
+    private final String address;
+    // 权重，按比例分配请求，默认 100
+    private final int weight;
+    // 服务发布的时间戳（毫秒），0 表示未知
+    private final long timestamp;
+    // 预热时间（毫秒），发布后的这段时间内权重从 1 线性增长到 weight，0 表示不预热
+    private final long warmup;
+    // 服务端同时能接收的请求数（线程数 + 队列长度），0 表示未知
+    private final int capacity;
+    // 所在的可用区或机架，null 表示未知
+    private final String zone;
+    // 由 address 拆出的未解析地址，创建实例时拆分一次，每次调用直接使用。
+    // 不在这里做 DNS 解析：实例在注册中心的事件线程上创建，域名由建立连接时的 Netty 解析，IP 不需要解析
+    @ToString.Exclude
+    private final InetSocketAddress inetSocketAddress;
+
+    /**
+     * @param weight 权重，null 时使用 {@link #DEFAULT_WEIGHT}
+     */
+    @Builder
+    private ServiceInstance(String address, Integer weight, long timestamp, long warmup, int capacity, String zone) {
+        this.address = address;
+        this.weight = weight == null ? DEFAULT_WEIGHT : weight;
+        this.timestamp = timestamp;
+        this.warmup = warmup;
+        this.capacity = capacity;
+        this.zone = zone;
+        int index = address.lastIndexOf(':');
+        this.inetSocketAddress = InetSocketAddress.createUnresolved(address.substring(0, index), Integer.parseInt(address.substring(index + 1)));
+    }
+
+    /**
+     * @return host:port，已解析和未解析的同一个地址得到相同的结果
+     */
+    public static String toAddress(InetSocketAddress inetSocketAddress) {
+        return inetSocketAddress.getHostString() + ":" + inetSocketAddress.getPort();
+    }
+
+    /**
+     * @return 写入注册中心节点的元数据
+     */
+    public byte[] toData() {
+        return ("weight=" + weight + "\n"
+                + "timestamp=" + timestamp + "\n"
+                + "warmup=" + warmup + "\n"
+                + "capacity=" + capacity + "\n"
+                + (zone == null ? "" : "zone=" + zone + "\n")).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 由注册中心的子节点名和节点数据还原服务实例
+     * @param address 子节点名 host:port
+     * @param data    节点数据，没有元数据时为 null 或空
+     */
+    public static ServiceInstance parse(String address, byte[] data) {
+        ServiceInstanceBuilder builder = ServiceInstance.builder().address(address);
+        if (data == null || data.length == 0) {
+            return builder.build();
+        }
+        for (String line : new String(data, StandardCharsets.UTF_8).split("\n")) {
+            int index = line.indexOf('=');
+            if (index <= 0) {
+                continue;
+            }
+            String key = line.substring(0, index).trim();
+            String value = line.substring(index + 1).trim();
+            try {
+                switch (key) {
+                    case "weight":
+                        builder.weight(Integer.parseInt(value));
+                        break;
+                    case "timestamp":
+                        builder.timestamp(Long.parseLong(value));
+                        break;
+                    case "warmup":
+                        builder.warmup(Long.parseLong(value));
+                        break;
+                    case "capacity":
+                        builder.capacity(Integer.parseInt(value));
+                        break;
+                    case "zone":
+                        builder.zone(value.isEmpty() ? null : value);
+                        break;
+                    default:
+                        break;
+                }
+            } catch (NumberFormatException ignored) {
+                // 格式错误的值使用默认值
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 考虑预热后的当前权重：发布后的预热时间内按已运行时间占预热时间的比例缩小，最小为 1，
+     * 刚启动、JIT 还没有完成编译的实例不会立即分到全部的请求
+     */
+    public int getWarmWeight() {
+        if (weight <= 0) {
+            return 0;
+        }
+        if (timestamp <= 0 || warmup <= 0) {
+            return weight;
+        }
+        long uptime = System.currentTimeMillis() - timestamp;
+        if (uptime <= 0) {
+            return 1;
+        }
+        if (uptime >= warmup) {
+            return weight;
+        }
+        return Math.max(1, (int) (weight * uptime / warmup));
+    }
+}
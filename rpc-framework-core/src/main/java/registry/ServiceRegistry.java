@@ -1,5 +1,7 @@
 package registry;
 
+import extension.SPI;
+
 import java.net.InetSocketAddress;
 
 /**
@@ -7,11 +9,21 @@ import java.net.InetSocketAddress;
  * @author Chen
  * @create 2021-03-26 22:27
  */
+@SPI
 public interface ServiceRegistry {
     /**
      * 注册服务到注册中心
      * @param rpcServiceName    完整的服务名称（class name+group+version）
      * @param inetSocketAddress 远程服务地址
      */
-    void registerService(String rpcServiceName, InetSocketAddress inetSocketAddress);
+    default void registerService(String rpcServiceName, InetSocketAddress inetSocketAddress) {
+        registerService(rpcServiceName, ServiceInstance.builder().address(ServiceInstance.toAddress(inetSocketAddress)).build());
+    }
+
+    /**
+     * 注册服务到注册中心，同时发布权重、发布时间等元数据
+     * @param rpcServiceName  完整的服务名称（class name+group+version）
+     * @param serviceInstance 服务地址和元数据
+     */
+    void registerService(String rpcServiceName, ServiceInstance serviceInstance);
 }
@@ -6,13 +6,18 @@ import org.apache.curator.RetryPolicy;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.framework.imps.CuratorFrameworkState;
+import org.apache.curator.framework.recipes.cache.ChildData;
 import org.apache.curator.framework.recipes.cache.PathChildrenCache;
-import org.apache.curator.framework.recipes.cache.PathChildrenCacheListener;
 import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.curator.utils.CloseableUtils;
+import org.apache.curator.utils.ZKPaths;
 import org.apache.zookeeper.CreateMode;
+import registry.ServiceInstance;
 import utils.PropertiesFileUtil;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -33,8 +38,12 @@ public final class CuratorUtils {
     private static final int MAX_RETRIES = 3;
     // rpc所在zk的根节点
     public static final String ZK_REGISTER_ROOT_PATH = "/chen-rpc";
-    // 服务地址（可能一个服务被部署在多台机器上，所以有多个地址）
-    private static final Map<String, List<String>> SERVICE_ADDRESS_MAP = new ConcurrentHashMap<>();
+    /**
+     * 服务实例（可能一个服务被部署在多台机器上，所以有多个地址），包含地址和服务提供方发布的元数据
+     * key: rpc服务名
+     * value: 由子节点事件维护的实例缓存
+     */
+    private static final Map<String, ServiceInstanceCache> SERVICE_ADDRESS_MAP = new ConcurrentHashMap<>();
     // 已存在的节点的路径的集合
     private static final Set<String> REGISTERED_PATH_SET = ConcurrentHashMap.newKeySet();
     // zk客户端对象
@@ -50,12 +59,23 @@ public final class CuratorUtils {
      * @param path
      */
     public static void createPersistentNode(CuratorFramework zkClient, String path) {
+        createPersistentNode(zkClient, path, new byte[0]);
+    }
+
+    /**
+     * 在zk中创建一个持久节点并写入数据，节点已经存在时（例如服务重启）覆盖原来的数据
+     * @param zkClient
+     * @param path
+     * @param data 节点数据
+     */
+    public static void createPersistentNode(CuratorFramework zkClient, String path, byte[] data) {
         try {
             if (REGISTERED_PATH_SET.contains(path) || zkClient.checkExists().forPath(path) != null) {
-                log.info("The node already exists. The node is:[{}]", path);
+                zkClient.setData().forPath(path, data);
+                log.info("The node already exists, update its data. The node is:[{}]", path);
             } else {
                 //eg: /chen-rpc/github.javaguide.HelloService/127.0.0.1:9999
-                zkClient.create().creatingParentsIfNeeded().withMode(CreateMode.PERSISTENT).forPath(path);
+                zkClient.create().creatingParentsIfNeeded().withMode(CreateMode.PERSISTENT).forPath(path, data);
                 log.info("The node was created successfully. The node is:[{}]", path);
             }
             REGISTERED_PATH_SET.add(path);
@@ -65,26 +85,18 @@ public final class CuratorUtils {
     }
 
     /**
-     * 获取节点的所有子节点
-     * @param zkClient
+     * 获取服务的所有实例：子节点名是地址，节点数据是元数据。
+     * 缓存已经加载时只是一次 volatile 读，不访问 zk 也不分配对象；第一次查询时只有一个线程从 zk 加载，并发的调用方等待它的结果
      * @param rpcServiceName 服务名称 eg:github.javaguide.HelloServicetest2version1
-     * @return 该节点的所有子节点
+     * @return 该服务所有实例的不可变列表，加载失败时返回 null
      */
-    public static List<String> getChildrenNodes(CuratorFramework zkClient, String rpcServiceName) {
-        if (SERVICE_ADDRESS_MAP.containsKey(rpcServiceName)) {
-            return SERVICE_ADDRESS_MAP.get(rpcServiceName);
+    public static List<ServiceInstance> getServiceInstances(String rpcServiceName) {
+        ServiceInstanceCache cache = SERVICE_ADDRESS_MAP.get(rpcServiceName);
+        if (cache == null) {
+            cache = SERVICE_ADDRESS_MAP.computeIfAbsent(rpcServiceName, ServiceInstanceCache::new);
         }
-        List<String> result = null;
-        String servicePath = ZK_REGISTER_ROOT_PATH + "/" + rpcServiceName;
-        try {
-            result = zkClient.getChildren().forPath(servicePath);
-            SERVICE_ADDRESS_MAP.put(rpcServiceName, result);
-            // 首次查询时，注册事件，监听所有子节点。若有改变，发生回调，这里每次都触发
-            registerWatcher(rpcServiceName, zkClient);
-        } catch (Exception e) {
-            log.error("get children nodes for path [{}] fail", servicePath);
-        }
-        return result;
+        List<ServiceInstance> snapshot = cache.snapshot;
+        return snapshot != null ? snapshot : cache.load();
     }
 
     /**
@@ -95,7 +107,7 @@ public final class CuratorUtils {
     public static void clearRegistry(CuratorFramework zkClient, InetSocketAddress inetSocketAddress) {
         REGISTERED_PATH_SET.stream().parallel().forEach(p -> {
             try {
-                if (p.endsWith(inetSocketAddress.toString())) {
+                if (p.endsWith("/" + ServiceInstance.toAddress(inetSocketAddress))) {
                     zkClient.delete().forPath(p);
                 }
             } catch (Exception e) {
@@ -105,15 +117,15 @@ public final class CuratorUtils {
         log.info("All registered services on the server are cleared:[{}]", REGISTERED_PATH_SET.toString());
     }
 
-    public static CuratorFramework getZkClient() {
+    public static synchronized CuratorFramework getZkClient() {
+        // 如果 zkClient 已启动，直接返回，不必再读取配置文件
+        if (zkClient != null && zkClient.getState() == CuratorFrameworkState.STARTED) {
+            return zkClient;
+        }
         // check if user has set zk address
         // 检查用户是否配置了zk地址，如果没有，则用默认地址（去本机找2181端口看是否有zk）
         Properties properties = PropertiesFileUtil.readPropertiesFile(RpcConfigEnum.RPC_CONFIG_PATH.getPropertyValue());
         String zookeeperAddress = properties != null && properties.getProperty(RpcConfigEnum.ZK_ADDRESS.getPropertyValue()) != null ? properties.getProperty(RpcConfigEnum.ZK_ADDRESS.getPropertyValue()) : DEFAULT_ZOOKEEPER_ADDRESS;
-        // 如果 zkClient 已启动，直接返回
-        if (zkClient != null && zkClient.getState() == CuratorFrameworkState.STARTED) {
-            return zkClient;
-        }
         // Retry strategy. Retry 3 times, and will increase the sleep time between retries.
         // 重试策略：
         RetryPolicy retryPolicy = new ExponentialBackoffRetry(BASE_SLEEP_TIME, MAX_RETRIES);
@@ -135,21 +147,95 @@ public final class CuratorUtils {
     }
 
     /**
-     * 对特定节点的变化进行注册监听(每次都会触发)
-     * @param rpcServiceName rpc服务名称
-     * @param zkClient
-     * @throws Exception
+     * 一个服务的实例缓存。PathChildrenCache 监听子节点并缓存节点数据，
+     * 子节点增加、删除或数据变化时只按这一个子节点生成新的不可变列表并整体替换，不再重新列出所有子节点
      */
-    private static void registerWatcher(String rpcServiceName, CuratorFramework zkClient) throws Exception {
-        String servicePath = ZK_REGISTER_ROOT_PATH + "/" + rpcServiceName;
-        // 给某个节点注册子节点监视器，当该节点的子节点发生变化时，可以自定义回调操作。
-        PathChildrenCache pathChildrenCache = new PathChildrenCache(zkClient, servicePath, true);
-        PathChildrenCacheListener pathChildrenCacheListener = (curatorFramework, pathChildrenCacheEvent) -> {
-            // 获取某个节点的所有子节点路径
-            List<String> serviceAddresses = curatorFramework.getChildren().forPath(servicePath);
-            SERVICE_ADDRESS_MAP.put(rpcServiceName, serviceAddresses);
-        };
-        pathChildrenCache.getListenable().addListener(pathChildrenCacheListener);
-        pathChildrenCache.start();
+    private static final class ServiceInstanceCache {
+        private final String rpcServiceName;
+        private volatile List<ServiceInstance> snapshot;
+        private PathChildrenCache pathChildrenCache;
+        private boolean failed;
+
+        private ServiceInstanceCache(String rpcServiceName) {
+            this.rpcServiceName = rpcServiceName;
+        }
+
+        // 第一次加载：创建 PathChildrenCache 并同步读取当前的子节点和数据
+        private synchronized List<ServiceInstance> load() {
+            if (snapshot != null || failed) {
+                return snapshot;
+            }
+            String servicePath = ZK_REGISTER_ROOT_PATH + "/" + rpcServiceName;
+            try {
+                // 给某个节点注册子节点监视器，当该节点的子节点发生变化时，可以自定义回调操作。
+                pathChildrenCache = new PathChildrenCache(getZkClient(), servicePath, true);
+                pathChildrenCache.getListenable().addListener((curatorFramework, pathChildrenCacheEvent) -> {
+                    switch (pathChildrenCacheEvent.getType()) {
+                        case CHILD_ADDED:
+                        case CHILD_UPDATED:
+                            apply(pathChildrenCacheEvent.getData(), false);
+                            break;
+                        case CHILD_REMOVED:
+                            apply(pathChildrenCacheEvent.getData(), true);
+                            break;
+                        default:
+                            break;
+                    }
+                });
+                pathChildrenCache.start(PathChildrenCache.StartMode.BUILD_INITIAL_CACHE);
+                List<ServiceInstance> serviceInstances = new ArrayList<>();
+                for (ChildData childData : pathChildrenCache.getCurrentData()) {
+                    ServiceInstance serviceInstance = parse(childData);
+                    if (serviceInstance != null) {
+                        serviceInstances.add(serviceInstance);
+                    }
+                }
+                snapshot = Collections.unmodifiableList(serviceInstances);
+            } catch (Exception e) {
+                log.error("get children nodes for path [{}] fail", servicePath, e);
+                failed = true;
+                CloseableUtils.closeQuietly(pathChildrenCache);
+                // 下一次查询重新加载
+                SERVICE_ADDRESS_MAP.remove(rpcServiceName, this);
+            }
+            return snapshot;
+        }
+
+        /**
+         * 把一个子节点的变化合并到新的列表中，原来的列表不变，正在使用它的调用方不受影响。
+         * 同一个子节点重复的事件结果相同
+         */
+        private synchronized void apply(ChildData childData, boolean removed) {
+            if (snapshot == null) {
+                return;
+            }
+            String address = ZKPaths.getNodeFromPath(childData.getPath());
+            ServiceInstance changed = removed ? null : parse(childData);
+            List<ServiceInstance> serviceInstances = new ArrayList<>(snapshot.size() + 1);
+            boolean replaced = false;
+            for (ServiceInstance serviceInstance : snapshot) {
+                if (!serviceInstance.getAddress().equals(address)) {
+                    serviceInstances.add(serviceInstance);
+                } else if (changed != null) {
+                    serviceInstances.add(changed);
+                    replaced = true;
+                }
+            }
+            if (changed != null && !replaced) {
+                serviceInstances.add(changed);
+            }
+            snapshot = Collections.unmodifiableList(serviceInstances);
+            log.info("service [{}] instances changed: [{}]", rpcServiceName, serviceInstances);
+        }
+
+        private static ServiceInstance parse(ChildData childData) {
+            String address = ZKPaths.getNodeFromPath(childData.getPath());
+            try {
+                return ServiceInstance.parse(address, childData.getData());
+            } catch (RuntimeException e) {
+                log.warn("ignore illegal service address [{}]", address);
+                return null;
+            }
+        }
     }
 }
@@ -1,14 +1,20 @@
 package registry.util;
 
+import enums.RpcConfigEnum;
 import enums.RpcErrorMessageEnum;
 import exception.RpcException;
+import extension.ExtensionLoader;
 import loadbalance.LoadBalance;
-import loadbalance.loadbalancer.RandomLoadBalance;
+import loadbalance.ZoneAwareRouter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.curator.framework.CuratorFramework;
 import registry.ServiceDiscovery;
+import registry.ServiceInstance;
+import remoting.dto.RpcRequest;
+import utils.RpcConfigUtil;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -20,25 +26,46 @@ import java.util.List;
 public class ZkServiceDiscovery implements ServiceDiscovery {
 
     private final LoadBalance loadBalance;
+    private final ZoneAwareRouter zoneAwareRouter;
 
     public ZkServiceDiscovery() {
-        // 这里有扩展，先记下。
-        this.loadBalance = new RandomLoadBalance();
+        // 负载均衡策略由 rpc.loadbalance 配置，@RpcReference 可以为单个引用另外指定
+        this.loadBalance = ExtensionLoader.getExtensionLoader(LoadBalance.class)
+                .getExtension(RpcConfigUtil.getString(RpcConfigEnum.LOAD_BALANCE, "random"));
+        this.zoneAwareRouter = new ZoneAwareRouter(RpcConfigUtil.getString(RpcConfigEnum.ZONE, null),
+                Double.parseDouble(RpcConfigUtil.getString(RpcConfigEnum.ZONE_SPILL_THRESHOLD, "0.5")));
     }
 
     @Override
-    public InetSocketAddress lookupService(String rpcServiceName) {
-        CuratorFramework zkClient = CuratorUtils.getZkClient();
-        List<String> serviceUrlList = CuratorUtils.getChildrenNodes(zkClient, rpcServiceName);
-        if (serviceUrlList.size() == 0) {
+    public InetSocketAddress lookupService(RpcRequest rpcRequest) {
+        String rpcServiceName = rpcRequest.getRpcServiceName();
+        List<ServiceInstance> serviceInstances = CuratorUtils.getServiceInstances(rpcServiceName);
+        if (serviceInstances == null || serviceInstances.size() == 0) {
             throw new RpcException(RpcErrorMessageEnum.SERVICE_CAN_NOT_BE_FOUND, rpcServiceName);
         }
-        // 负载均衡
-        String targetServiceUrl = loadBalance.selectServiceAddress(serviceUrlList, rpcServiceName);
-        log.info("Successfully found the service address:[{}]", targetServiceUrl);
-        String[] socketAddressArray = targetServiceUrl.split(":");
-        String host = socketAddressArray[0];
-        int port = Integer.parseInt(socketAddressArray[1]);
-        return new InetSocketAddress(host, port);
+        // 优先选择同一可用区的实例，再负载均衡
+        serviceInstances = zoneAwareRouter.route(serviceInstances);
+        LoadBalance requestLoadBalance = rpcRequest.getLoadBalance() == null ? loadBalance
+                : ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtension(rpcRequest.getLoadBalance());
+        ServiceInstance targetServiceInstance = requestLoadBalance.selectServiceAddress(serviceInstances, rpcRequest);
+        // 所有实例的权重都为 0 时按权重选择的策略选不出实例
+        if (targetServiceInstance == null) {
+            throw new RpcException(RpcErrorMessageEnum.SERVICE_CAN_NOT_BE_FOUND, rpcServiceName);
+        }
+        log.info("Successfully found the service address:[{}]", targetServiceInstance.getAddress());
+        return targetServiceInstance.getInetSocketAddress();
+    }
+
+    @Override
+    public List<InetSocketAddress> lookupAllServices(String rpcServiceName) {
+        List<ServiceInstance> serviceInstances = CuratorUtils.getServiceInstances(rpcServiceName);
+        if (serviceInstances == null) {
+            return Collections.emptyList();
+        }
+        List<InetSocketAddress> addresses = new ArrayList<>(serviceInstances.size());
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            addresses.add(serviceInstance.getInetSocketAddress());
+        }
+        return addresses;
     }
 }
@@ -2,10 +2,9 @@ package registry.util;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
+import registry.ServiceInstance;
 import registry.ServiceRegistry;
 
-import java.net.InetSocketAddress;
-
 /**
  * 服务注册（基于zookeeper实现）
  * @author Chen
@@ -14,15 +13,15 @@ import java.net.InetSocketAddress;
 @Slf4j
 public class ZkserviceRegistry implements ServiceRegistry {
     /**
-     * 根节点是完整的服务名称，子节点是对应的服务地址
+     * 根节点是完整的服务名称，子节点是对应的服务地址 host:port，节点数据是服务实例的元数据
      * （服务可能被部署在多台机器上，所以可能对应多个子节点）
-     * @param rpcServiceName    完整的服务名称（class name+group+version）
-     * @param inetSocketAddress 远程服务地址
+     * @param rpcServiceName  完整的服务名称（class name+group+version）
+     * @param serviceInstance 服务地址和元数据
      */
     @Override
-    public void registerService(String rpcServiceName, InetSocketAddress inetSocketAddress) {
-        String servicePath = CuratorUtils.ZK_REGISTER_ROOT_PATH + "/" + rpcServiceName + "/" + inetSocketAddress.toString();
+    public void registerService(String rpcServiceName, ServiceInstance serviceInstance) {
+        String servicePath = CuratorUtils.ZK_REGISTER_ROOT_PATH + "/" + rpcServiceName + "/" + serviceInstance.getAddress();
         CuratorFramework zkClient = CuratorUtils.getZkClient();
-        CuratorUtils.createPersistentNode(zkClient, servicePath);
+        CuratorUtils.createPersistentNode(zkClient, servicePath, serviceInstance.toData());
     }
 }
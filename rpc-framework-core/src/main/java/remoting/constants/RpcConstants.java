@@ -16,7 +16,11 @@ public class RpcConstants {
     public static final byte[] MAGIC_NUMBER = {(byte) 'g', (byte) 'r', (byte) 'p', (byte) 'c'};
     public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
     //version information，版本信息
-    public static final byte VERSION = 1;
+    // v1：header 中是 4 字节的 requestId，请求与响应靠消息体中的 String requestId 关联
+    public static final byte VERSION_1 = 1;
+    // v2：header 中是 8 字节的 requestId，作为请求与响应唯一的关联标识，消息体中不再携带 requestId
+    public static final byte VERSION_2 = 2;
+    public static final byte VERSION = VERSION_2;
     public static final byte TOTAL_LENGTH = 16;
     // 消息类型 请求、响应、ping、pong
     public static final byte REQUEST_TYPE = 1;
@@ -27,6 +31,8 @@ public class RpcConstants {
     public static final byte HEARTBEAT_RESPONSE_TYPE = 4;
     // Rpc传输协议中header长度，header包括魔数，版本号，数据域长度，消息类型，压缩格式，序列化格式，请求id
     public static final int HEAD_LENGTH = 16;
+    // v2 的 header 长度，requestId 由 4 字节变为 8 字节
+    public static final int HEAD_LENGTH_V2 = 20;
     public static final String PING = "ping";
     public static final String PONG = "pong";
     // 数据包最大长度
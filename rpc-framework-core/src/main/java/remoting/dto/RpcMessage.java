@@ -23,9 +23,12 @@ public class RpcMessage {
     //compress type
     //压缩类型
     private byte compress;
+    //protocol version
+    //协议版本，为 0 时按当前版本编码
+    private byte version;
     //request id
     //请求id
-    private int requestId;
+    private long requestId;
     //request data
     //请求数据
     private Object data;
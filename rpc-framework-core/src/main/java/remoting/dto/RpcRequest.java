@@ -13,6 +13,7 @@ import java.io.Serializable;
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
+@Setter
 @Builder
 @ToString
 public class RpcRequest implements Serializable {
@@ -27,6 +28,26 @@ public class RpcRequest implements Serializable {
     private String version;
     // 主要应对一个接口多个实现类的情况
     private String group;
+    // 服务端分配的方法 id，非 0 时请求体只携带 methodId 和参数，0 表示完整形式
+    private int methodId;
+    // 客户端发送时剩余的超时时间（毫秒），服务端据此跳过客户端已经放弃等待的请求，0 表示不限制
+    private long timeout;
+    // 客户端选择服务地址使用的负载均衡策略，null 表示使用 rpc.loadbalance，只在客户端使用，不序列化
+    private transient String loadBalance;
+    // 调用的截止时间（System.nanoTime），调用开始时由 timeout 算出，重发和排队都不会延后它，0 表示不限制。只在客户端使用，不序列化
+    private transient long deadline;
+    // 完整的服务名，由 RequestTemplate 填入或第一次使用时算出，选择地址、负载均衡和服务端查找方法都使用它。不序列化
+    private transient String rpcServiceName;
+
+    /**
+     * @return 完整的服务名，第一次调用时算出并缓存，之后不应再修改接口名、version 和 group
+     */
+    public String getRpcServiceName() {
+        if (rpcServiceName == null) {
+            rpcServiceName = toRpcProperties().toRpcServiceName();
+        }
+        return rpcServiceName;
+    }
 
     // RpcServiceProperties中各属性组成完整的服务名
     public RpcServiceProperties toRpcProperties() {
@@ -24,6 +24,10 @@ public class RpcResponse<T> implements Serializable {
     private Integer code;
     private String message;
     private T data;
+    // 服务端为完整形式请求分配的方法 id，客户端在该连接上缓存后改发紧凑形式，0 表示没有分配
+    private int methodId;
+    // 服务端还能接收的请求数，客户端据此收紧在途窗口，null 表示服务端没有通告
+    private Integer capacity;
 
     public static <T> RpcResponse<T> success(T data, String requestId) {
         RpcResponse<T> response = new RpcResponse<>();
@@ -36,6 +40,12 @@ public class RpcResponse<T> implements Serializable {
         return response;
     }
 
+    public static <T> RpcResponse<T> fail(RpcResponseCodeEnum rpcResponseCodeEnum, String requestId) {
+        RpcResponse<T> response = fail(rpcResponseCodeEnum);
+        response.setRequestId(requestId);
+        return response;
+    }
+
     public static <T> RpcResponse<T> fail(RpcResponseCodeEnum rpcResponseCodeEnum) {
         RpcResponse<T> response = new RpcResponse<>();
         response.setCode(rpcResponseCodeEnum.getCode());
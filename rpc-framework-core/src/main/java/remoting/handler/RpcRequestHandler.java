@@ -1,14 +1,13 @@
 package remoting.handler;
 
+import enums.RpcErrorMessageEnum;
 import exception.RpcException;
 import factory.SingletonFactory;
+import provider.ServiceMethod;
 import provider.ServiceProvider;
 import provider.ServiceProviderImpl;
 import remoting.dto.RpcRequest;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-
 /**
  * @author Chen
  * @create 2021-04-22 20:41
@@ -27,26 +26,15 @@ public class RpcRequestHandler {
      * @return  响应结果
      */
     public Object handle(RpcRequest rpcRequest) {
-        // 根据服务名拿到相应的服务对象
-        Object service = serviceProvider.getService(rpcRequest.toRpcProperties());
-        return invokeTargetMethod(rpcRequest, service);
-    }
-
-    /**
-     * 获取目标方法的执行结果
-     * @param rpcRequest 客户端请求
-     * @param service    服务对象
-     * @return           目标方法执行后的返回结果
-     */
-    private Object invokeTargetMethod(RpcRequest rpcRequest, Object service) {
-        Object result;
-        try {
-            Method method = service.getClass().getMethod(rpcRequest.getMethodName(), rpcRequest.getParamTypes());
-            result = method.invoke(service, rpcRequest.getParameters());
-        } catch (NoSuchMethodException | IllegalArgumentException | InvocationTargetException | IllegalAccessException e) {
-            throw new RpcException(e.getMessage(), e);
+        // 根据方法 id 或方法签名拿到发布服务时缓存的服务方法
+        ServiceMethod serviceMethod = rpcRequest.getMethodId() != 0
+                ? serviceProvider.getServiceMethod(rpcRequest.getMethodId())
+                : serviceProvider.getServiceMethod(ServiceMethod.signature(rpcRequest.getRpcServiceName(),
+                        rpcRequest.getMethodName(), rpcRequest.getParamTypes()));
+        if (serviceMethod == null) {
+            throw new RpcException(RpcErrorMessageEnum.SERVICE_CAN_NOT_BE_FOUND);
         }
-        return result;
+        return serviceMethod.invoke(rpcRequest.getParameters());
     }
 
 }
@@ -0,0 +1,60 @@
+package remoting.transport.netty;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统计真正到达 socket 的写出消息数和 flush 次数，两者之比就是每次写系统调用平均发出的消息数。
+ * 放在 pipeline 最靠近 head 的位置，所以统计的是经过 FlushConsolidationHandler 合并之后的 flush。
+ * 所有 channel 共用一个实例
+ * @author Chen
+ * @create 2026-10-17 15:40
+ */
+@ChannelHandler.Sharable
+public final class FlushStatsHandler extends ChannelOutboundHandlerAdapter {
+
+    public static final FlushStatsHandler INSTANCE = new FlushStatsHandler();
+
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    private FlushStatsHandler() {
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        messages.increment();
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        flushes.increment();
+        ctx.flush();
+    }
+
+    public long getMessages() {
+        return messages.sum();
+    }
+
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    /**
+     * @return 每次 flush 平均写出的消息数，还没有 flush 时返回 0
+     */
+    public double getMessagesPerFlush() {
+        long f = flushes.sum();
+        return f == 0 ? 0 : (double) messages.sum() / f;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FlushStats{messages=%d, flushes=%d, messagesPerFlush=%.2f}", getMessages(), getFlushes(), getMessagesPerFlush());
+    }
+}
@@ -0,0 +1,192 @@
+package remoting.transport.netty;
+
+import enums.RpcConfigEnum;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import lombok.extern.slf4j.Slf4j;
+import utils.RpcConfigUtil;
+
+/**
+ * 按 rpc.transport.type 选择 Netty 的传输实现，客户端和服务端共用。
+ * auto 时在 Linux 上可加载 native epoll 就使用 epoll，否则退回 nio。
+ * epoll 下使用边缘触发，并按配置开启 SO_REUSEPORT、TCP_FASTOPEN、TCP_QUICKACK。
+ * 两种传输都使用池化的 ByteBuf、按帧大小调整的 AdaptiveRecvByteBufAllocator 和可配置的写缓冲区水位，
+ * 并可选地合并 flush。
+ * @author Chen
+ * @create 2026-10-17 15:10
+ */
+@Slf4j
+public final class NettyTransport {
+
+    private static final boolean EPOLL = useEpoll(RpcConfigUtil.getString(RpcConfigEnum.TRANSPORT_TYPE, "auto"));
+    private static final int TCP_FASTOPEN = RpcConfigUtil.getInt(RpcConfigEnum.TCP_FASTOPEN, 0);
+    private static final boolean TCP_QUICKACK = RpcConfigUtil.getBoolean(RpcConfigEnum.TCP_QUICKACK, true);
+    // TCP默认开启了 Nagle 算法，该算法的作用是尽可能的发送大数据快，减少网络传输。TCP_NODELAY 参数的作用就是控制是否启用 Nagle 算法。
+    private static final boolean TCP_NODELAY = RpcConfigUtil.getBoolean(RpcConfigEnum.TCP_NODELAY, true);
+    private static final ByteBufAllocator ALLOCATOR = new PooledByteBufAllocator(RpcConfigUtil.getBoolean(RpcConfigEnum.ALLOCATOR_DIRECT, true));
+    // 大多数请求、响应只有几百字节，初始按 2K 分配，连续读满时再逐步扩大
+    private static final int RECV_BUFFER_MIN = RpcConfigUtil.getInt(RpcConfigEnum.RECV_BUFFER_MIN, 64);
+    private static final int RECV_BUFFER_INITIAL = RpcConfigUtil.getInt(RpcConfigEnum.RECV_BUFFER_INITIAL, 2048);
+    private static final int RECV_BUFFER_MAX = RpcConfigUtil.getInt(RpcConfigEnum.RECV_BUFFER_MAX, 65536);
+    private static final WriteBufferWaterMark WATER_MARK = new WriteBufferWaterMark(
+            RpcConfigUtil.getInt(RpcConfigEnum.WRITE_BUFFER_LOW, 32 * 1024),
+            RpcConfigUtil.getInt(RpcConfigEnum.WRITE_BUFFER_HIGH, 64 * 1024));
+    private static final int SO_SNDBUF = RpcConfigUtil.getInt(RpcConfigEnum.SO_SNDBUF, 0);
+    private static final int SO_RCVBUF = RpcConfigUtil.getInt(RpcConfigEnum.SO_RCVBUF, 0);
+    private static final boolean FLUSH_CONSOLIDATION = RpcConfigUtil.getBoolean(RpcConfigEnum.FLUSH_CONSOLIDATION, false);
+    private static final int FLUSH_MAX_BATCH = flushMaxBatch(RpcConfigUtil.getInt(RpcConfigEnum.FLUSH_MAX_BATCH, FlushConsolidationHandler.DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES));
+    private static final boolean FLUSH_STATS = RpcConfigUtil.getBoolean(RpcConfigEnum.FLUSH_STATS, false);
+
+    private NettyTransport() {
+    }
+
+    // FlushConsolidationHandler 要求批量大小大于 0，否则每个 channel 初始化时都会抛出异常
+    private static int flushMaxBatch(int maxBatch) {
+        if (maxBatch <= 0) {
+            log.warn("invalid value [{}] of config [{}], use default [{}]", maxBatch,
+                    RpcConfigEnum.FLUSH_MAX_BATCH.getPropertyValue(), FlushConsolidationHandler.DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES);
+            return FlushConsolidationHandler.DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES;
+        }
+        return maxBatch;
+    }
+
+    private static boolean useEpoll(String type) {
+        switch (type.trim().toLowerCase()) {
+            case "nio":
+                return false;
+            case "epoll":
+                if (!Epoll.isAvailable()) {
+                    log.warn("epoll transport is not available, fall back to nio", Epoll.unavailabilityCause());
+                }
+                return Epoll.isAvailable();
+            case "io_uring":
+                // 当前依赖的 Netty 版本不包含 io_uring 传输
+                log.warn("io_uring transport is not supported by this netty version, fall back to auto");
+                return Epoll.isAvailable();
+            case "auto":
+                return Epoll.isAvailable();
+            default:
+                log.warn("unknown transport type [{}], fall back to auto", type);
+                return Epoll.isAvailable();
+        }
+    }
+
+    public static boolean isEpoll() {
+        return EPOLL;
+    }
+
+    /**
+     * @param nThreads 线程数，0 表示使用 Netty 的默认值(CPU 核数 * 2)
+     */
+    public static EventLoopGroup newEventLoopGroup(int nThreads) {
+        return EPOLL ? new EpollEventLoopGroup(nThreads) : new NioEventLoopGroup(nThreads);
+    }
+
+    public static Class<? extends ServerChannel> serverChannelClass() {
+        return EPOLL ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    public static Class<? extends SocketChannel> channelClass() {
+        return EPOLL ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+
+    /**
+     * 服务端监听 channel 的个数。只有 epoll 支持 SO_REUSEPORT，nio 下始终为 1
+     */
+    public static int acceptors() {
+        return EPOLL ? Math.max(1, RpcConfigUtil.getInt(RpcConfigEnum.SERVER_ACCEPTORS, 1)) : 1;
+    }
+
+    /**
+     * 设置服务端的缓冲区、水位等选项，epoll 下再设置 epoll 相关的选项
+     */
+    public static void applyServerOptions(ServerBootstrap b) {
+        b.option(ChannelOption.ALLOCATOR, ALLOCATOR)
+                .childOption(ChannelOption.ALLOCATOR, ALLOCATOR)
+                .childOption(ChannelOption.RCVBUF_ALLOCATOR, newRecvByteBufAllocator())
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, WATER_MARK)
+                .childOption(ChannelOption.TCP_NODELAY, TCP_NODELAY);
+        if (SO_SNDBUF > 0) {
+            b.childOption(ChannelOption.SO_SNDBUF, SO_SNDBUF);
+        }
+        if (SO_RCVBUF > 0) {
+            // 在监听 channel 上设置，accept 的连接继承该值，大于 64K 时才能在握手中协商窗口扩大
+            b.option(ChannelOption.SO_RCVBUF, SO_RCVBUF);
+        }
+        if (!EPOLL) {
+            return;
+        }
+        b.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED)
+                .childOption(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED)
+                .childOption(EpollChannelOption.TCP_QUICKACK, TCP_QUICKACK);
+        if (acceptors() > 1) {
+            b.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+        if (TCP_FASTOPEN > 0) {
+            b.option(EpollChannelOption.TCP_FASTOPEN, TCP_FASTOPEN);
+        }
+    }
+
+    /**
+     * 设置客户端的缓冲区、水位等选项，epoll 下再设置 epoll 相关的选项
+     */
+    public static void applyClientOptions(Bootstrap b) {
+        b.option(ChannelOption.ALLOCATOR, ALLOCATOR)
+                .option(ChannelOption.RCVBUF_ALLOCATOR, newRecvByteBufAllocator())
+                .option(ChannelOption.WRITE_BUFFER_WATER_MARK, WATER_MARK)
+                .option(ChannelOption.TCP_NODELAY, TCP_NODELAY);
+        if (SO_SNDBUF > 0) {
+            b.option(ChannelOption.SO_SNDBUF, SO_SNDBUF);
+        }
+        if (SO_RCVBUF > 0) {
+            b.option(ChannelOption.SO_RCVBUF, SO_RCVBUF);
+        }
+        if (!EPOLL) {
+            return;
+        }
+        b.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED)
+                .option(EpollChannelOption.TCP_QUICKACK, TCP_QUICKACK);
+        if (TCP_FASTOPEN > 0) {
+            b.option(EpollChannelOption.TCP_FASTOPEN_CONNECT, true);
+        }
+    }
+
+    /**
+     * 在 pipeline 最前面加入 flush 相关的 handler，必须在其他 handler 之前调用。
+     * 开启合并时，同一轮事件循环中的 flush 推迟到本轮结束时合并为一次，
+     * 累积 rpc.transport.flush.max-batch 次 flush 时立即写出，所以一条消息最多延迟一轮事件循环
+     */
+    public static void addFlushHandlers(ChannelPipeline p) {
+        if (FLUSH_STATS) {
+            p.addLast(FlushStatsHandler.INSTANCE);
+        }
+        if (FLUSH_CONSOLIDATION) {
+            // 客户端的请求由业务线程写入，没有正在进行的读，所以不在读时也要合并
+            p.addLast(new FlushConsolidationHandler(FLUSH_MAX_BATCH, true));
+        }
+    }
+
+    private static RecvByteBufAllocator newRecvByteBufAllocator() {
+        return new AdaptiveRecvByteBufAllocator(RECV_BUFFER_MIN, RECV_BUFFER_INITIAL, RECV_BUFFER_MAX);
+    }
+}
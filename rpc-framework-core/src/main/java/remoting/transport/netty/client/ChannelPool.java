@@ -0,0 +1,73 @@
+package remoting.transport.netty.client;
+
+import io.netty.channel.Channel;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 到同一个服务地址的一组连接，固定 N 个槽位，每个槽位一个 channel，由各自的 EventLoop 处理编解码，
+ * 到同一台服务器的吞吐不再受限于一个连接、一个 IO 线程
+ * @author Chen
+ * @create 2026-10-17 18:40
+ */
+public class ChannelPool {
+
+    private final AtomicReferenceArray<Channel> channels;
+    private final AtomicInteger next = new AtomicInteger(0);
+
+    public ChannelPool(int size) {
+        this.channels = new AtomicReferenceArray<>(size);
+    }
+
+    public int size() {
+        return channels.length();
+    }
+
+    public Channel get(int slot) {
+        return channels.get(slot);
+    }
+
+    public void set(int slot, Channel channel) {
+        channels.set(slot, channel);
+    }
+
+    /**
+     * 只有槽位中仍是这个 channel 时才移除
+     * @return 是否移除
+     */
+    public boolean remove(int slot, Channel channel) {
+        return channels.compareAndSet(slot, channel, null);
+    }
+
+    /**
+     * 轮询选择槽位
+     */
+    public int nextSlot() {
+        return (next.getAndIncrement() & Integer.MAX_VALUE) % channels.length();
+    }
+
+    /**
+     * 选择未完成请求最少的槽位，有空槽位或连接已断开的槽位时优先选择它，以便建立连接
+     * @param unprocessedRequests 用于获取每个连接上未完成的请求数
+     */
+    public int leastPendingSlot(UnprocessedRequests unprocessedRequests) {
+        int best = 0;
+        int bestPending = Integer.MAX_VALUE;
+        // 从轮询位置开始比较，未完成请求数相同时各连接轮流被选中
+        int start = nextSlot();
+        for (int i = 0; i < channels.length(); i++) {
+            int slot = (start + i) % channels.length();
+            Channel channel = channels.get(slot);
+            if (channel == null || !channel.isActive()) {
+                return slot;
+            }
+            int pending = unprocessedRequests.getPendingCount(channel);
+            if (pending < bestPending) {
+                best = slot;
+                bestPending = pending;
+            }
+        }
+        return best;
+    }
+}
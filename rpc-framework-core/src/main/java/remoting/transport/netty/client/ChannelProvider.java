@@ -1,7 +1,10 @@
 package remoting.transport.netty.client;
 
+import enums.RpcConfigEnum;
 import io.netty.channel.Channel;
 import lombok.extern.slf4j.Slf4j;
+import registry.ServiceInstance;
+import utils.RpcConfigUtil;
 
 import java.net.InetSocketAddress;
 
@@ -10,40 +13,58 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 存储和获得Channel object
+ * <p>
+ * 每个服务地址对应一个 {@link ChannelPool}，连接数由 rpc.client.connections 配置
  * @author Chen
  * @create 2021-03-28 22:08
  */
 @Slf4j
 public class ChannelProvider {
 
-    private final Map<String, Channel> channelMap;
+    private static final int CONNECTIONS = Math.max(1, RpcConfigUtil.getInt(RpcConfigEnum.CLIENT_CONNECTIONS, 1));
+
+    // key: 服务地址 host:port，同一个地址已解析和未解析的 InetSocketAddress 使用同一个连接池
+    private final Map<String, ChannelPool> channelMap;
 
     public ChannelProvider() {
         channelMap = new ConcurrentHashMap<>();
     }
 
-    public Channel get(InetSocketAddress inetSocketAddress) {
-        String key = inetSocketAddress.toString();
-        // 确定是否有对应地址的连接
-        if (channelMap.containsKey(key)) {
-            Channel channel = channelMap.get(key);
-            // 如果有连接，确定是否可用，如果可用，直接获取
-            if (channel != null && channel.isActive()) {
-                return channel;
-            } else {
-                channelMap.remove(key);
-            }
+    /**
+     * @return 服务地址对应的连接池，不存在时创建一个空的
+     */
+    public ChannelPool getPool(InetSocketAddress inetSocketAddress) {
+        return channelMap.computeIfAbsent(ServiceInstance.toAddress(inetSocketAddress), key -> new ChannelPool(CONNECTIONS));
+    }
+
+    public Channel get(InetSocketAddress inetSocketAddress, int slot) {
+        ChannelPool channelPool = channelMap.get(ServiceInstance.toAddress(inetSocketAddress));
+        if (channelPool == null) {
+            return null;
+        }
+        Channel channel = channelPool.get(slot);
+        // 如果有连接，确定是否可用，如果可用，直接获取
+        if (channel != null && channel.isActive()) {
+            return channel;
         }
         return null;
     }
 
-    public void set(InetSocketAddress inetSocketAddress, Channel channel) {
-        String key = inetSocketAddress.toString();
-        channelMap.put(key, channel);
+    public void set(InetSocketAddress inetSocketAddress, int slot, Channel channel) {
+        getPool(inetSocketAddress).set(slot, channel);
+    }
+
+    /**
+     * 只有槽位中仍是这个 channel 时才移除
+     * @return 是否移除
+     */
+    public boolean remove(InetSocketAddress inetSocketAddress, int slot, Channel channel) {
+        ChannelPool channelPool = channelMap.get(ServiceInstance.toAddress(inetSocketAddress));
+        return channelPool != null && channelPool.remove(slot, channel);
     }
 
     public void remove(InetSocketAddress inetSocketAddress) {
-        String key = inetSocketAddress.toString();
+        String key = ServiceInstance.toAddress(inetSocketAddress);
         channelMap.remove(key);
         log.info("Channel map size :[{}]", channelMap.size());
     }
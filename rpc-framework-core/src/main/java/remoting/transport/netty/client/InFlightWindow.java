@@ -0,0 +1,231 @@
+package remoting.transport.netty.client;
+
+import enums.RpcConfigEnum;
+import enums.RpcErrorMessageEnum;
+import exception.RpcException;
+import io.netty.channel.Channel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import io.netty.util.Timeout;
+import utils.RpcConfigUtil;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 一个连接上的在途请求窗口：同时发出、还没有收到响应的请求数不超过窗口大小，超出的请求在本地排队，队列也满时立即拒绝，
+ * 服务端变慢时请求不会无限堆积在写缓冲区和 {@link UnprocessedRequests} 中。
+ * <p>
+ * 窗口大小按 AIMD 自适应：响应正常且 RTT 没有明显变长时每个窗口加 1；请求超时、服务端返回 SERVER_BUSY 时减半，
+ * RTT 超过最小 RTT 的 rpc.client.window.rtt-tolerance 倍时减为 0.9 倍，每个 RTT 内最多减小一次。
+ * 服务端在响应中通告的剩余容量作为窗口的上限
+ * @author Chen
+ * @create 2026-10-17 19:30
+ */
+public class InFlightWindow {
+
+    private static final AttributeKey<InFlightWindow> WINDOW = AttributeKey.valueOf("inFlightWindow");
+    private static final int MAX_LIMIT = RpcConfigUtil.getInt(RpcConfigEnum.CLIENT_WINDOW_MAX, 1024);
+    private static final int INITIAL_LIMIT = Math.max(1, Math.min(MAX_LIMIT, RpcConfigUtil.getInt(RpcConfigEnum.CLIENT_WINDOW_INITIAL, 32)));
+    private static final boolean ADAPTIVE = RpcConfigUtil.getBoolean(RpcConfigEnum.CLIENT_WINDOW_ADAPTIVE, true);
+    private static final int QUEUE_CAPACITY = RpcConfigUtil.getInt(RpcConfigEnum.CLIENT_WINDOW_QUEUE, 1024);
+    private static final double RTT_TOLERANCE = Double.parseDouble(RpcConfigUtil.getString(RpcConfigEnum.CLIENT_WINDOW_RTT_TOLERANCE, "2.0"));
+    private static final int MIN_LIMIT = 1;
+    private static final double DROP_BACKOFF = 0.5;
+    private static final double RTT_BACKOFF = 0.9;
+    // 每收到这么多个响应重新测量一次最小 RTT，网络或服务端状态变化后不会一直以过时的最小 RTT 判断拥塞
+    private static final int MIN_RTT_RESET_SAMPLES = 1000;
+
+    private final ArrayDeque<Queued> queue = new ArrayDeque<>();
+    private double limit = INITIAL_LIMIT;
+    private int inFlight;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samples;
+    private long lastDecreaseNanos = System.nanoTime();
+    // 连接关闭的原因，非 null 时不再接收请求
+    private Throwable abortCause;
+
+    /**
+     * @return channel 的在途窗口，rpc.client.window.max 小于等于 0 时不限制，返回 null
+     */
+    public static InFlightWindow of(Channel channel) {
+        if (MAX_LIMIT <= 0) {
+            return null;
+        }
+        Attribute<InFlightWindow> attribute = channel.attr(WINDOW);
+        InFlightWindow window = attribute.get();
+        if (window == null) {
+            window = new InFlightWindow();
+            InFlightWindow old = attribute.setIfAbsent(window);
+            if (old != null) {
+                window = old;
+            }
+        }
+        return window;
+    }
+
+    /**
+     * 同 {@link #acquire(Runnable, Consumer, long)}，排队没有截止时间
+     */
+    public boolean acquire(Runnable task, Consumer<Throwable> onAbort) {
+        return acquire(task, onAbort, 0);
+    }
+
+    /**
+     * 窗口有空位时在当前线程立即执行 task，否则放入队列，在之前的请求完成、窗口空出时执行。
+     * task 执行时已经占用了一个窗口位置，请求完成后必须调用 {@link #release}
+     * @param onAbort  连接已经关闭、或者排队到截止时间还没有轮到，task 不会再执行时以失败的原因调用
+     * @param deadline 请求的截止时间（{@link System#nanoTime()}），排队超过截止时间时从队列中移除并以 REQUEST_TIMEOUT 失败；0 表示不限制
+     * @return 窗口和队列都已满时返回 false，task 和 onAbort 都不会执行
+     */
+    public boolean acquire(Runnable task, Consumer<Throwable> onAbort, long deadline) {
+        Throwable cause;
+        synchronized (this) {
+            cause = abortCause;
+            if (cause == null) {
+                if (inFlight >= (int) limit || !queue.isEmpty()) {
+                    if (queue.size() >= QUEUE_CAPACITY) {
+                        return false;
+                    }
+                    Queued queued = new Queued(task, onAbort);
+                    queue.add(queued);
+                    if (deadline != 0) {
+                        queued.timeout = UnprocessedRequests.newTimeout(t -> expire(queued), deadline - System.nanoTime());
+                    }
+                    return true;
+                }
+                inFlight++;
+            }
+        }
+        if (cause != null) {
+            onAbort.accept(cause);
+        } else {
+            task.run();
+        }
+        return true;
+    }
+
+    /**
+     * 连接关闭时调用：排队的请求以 cause 失败，不再被派发到已经关闭的连接上，之后的 acquire 也直接失败。
+     * 应当在结束连接上的在途请求之前调用，否则它们释放的窗口位置会先把排队的请求派发出去
+     */
+    public void abort(Throwable cause) {
+        List<Queued> aborted;
+        synchronized (this) {
+            if (abortCause != null) {
+                return;
+            }
+            abortCause = cause;
+            aborted = new ArrayList<>(queue);
+            queue.clear();
+        }
+        for (Queued queued : aborted) {
+            queued.cancelTimeout();
+            queued.onAbort.accept(cause);
+        }
+    }
+
+    /**
+     * 排队的请求到了截止时间：还在队列中时移除并以超时失败，已经被派发或随连接关闭失败时什么也不做
+     */
+    private void expire(Queued queued) {
+        synchronized (this) {
+            if (!queue.remove(queued)) {
+                return;
+            }
+        }
+        queued.onAbort.accept(new RpcException(RpcErrorMessageEnum.REQUEST_TIMEOUT, "deadline exceeded while queued in the in-flight window"));
+    }
+
+    /**
+     * 请求完成时调用，按这次请求的结果调整窗口，并执行因窗口空出而可以发送的排队请求
+     * @param rttNanos  从发出请求到完成的时间，小于等于 0 表示没有测量
+     * @param dropped   请求超时、失败或服务端返回 SERVER_BUSY
+     * @param capacity  服务端通告的剩余容量，null 表示没有通告
+     */
+    public void release(long rttNanos, boolean dropped, Integer capacity) {
+        List<Queued> ready = null;
+        synchronized (this) {
+            inFlight--;
+            if (ADAPTIVE) {
+                adjust(rttNanos, dropped, capacity);
+            }
+            while (inFlight < (int) limit && !queue.isEmpty()) {
+                inFlight++;
+                if (ready == null) {
+                    ready = new ArrayList<>();
+                }
+                ready.add(queue.poll());
+            }
+        }
+        if (ready != null) {
+            for (Queued queued : ready) {
+                queued.cancelTimeout();
+                queued.task.run();
+            }
+        }
+    }
+
+    private void adjust(long rttNanos, boolean dropped, Integer capacity) {
+        // 请求在本地排队时就超时了，没有得到服务端的任何信息
+        if (rttNanos <= 0 && !dropped && capacity == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        boolean rttInflated = false;
+        if (rttNanos > 0 && !dropped) {
+            if (++samples >= MIN_RTT_RESET_SAMPLES) {
+                samples = 0;
+                minRttNanos = Long.MAX_VALUE;
+            }
+            minRttNanos = Math.min(minRttNanos, rttNanos);
+            rttInflated = rttNanos > minRttNanos * RTT_TOLERANCE;
+        }
+        if (dropped || rttInflated) {
+            // 同一个 RTT 内的多个拥塞信号通常是同一次拥塞引起的，只减小一次
+            long window = minRttNanos == Long.MAX_VALUE ? 0 : minRttNanos;
+            if (now - lastDecreaseNanos >= window) {
+                limit = Math.max(MIN_LIMIT, limit * (dropped ? DROP_BACKOFF : RTT_BACKOFF));
+                lastDecreaseNanos = now;
+            }
+        } else if (inFlight + 1 >= limit / 2) {
+            // 窗口被用到一半以上时才增大，空闲的连接不会把窗口涨到上限
+            limit = Math.min(MAX_LIMIT, limit + 1 / limit);
+        }
+        if (capacity != null && capacity >= 0) {
+            limit = Math.max(MIN_LIMIT, Math.min(limit, inFlight + capacity + 1));
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return queue.size();
+    }
+
+    private static final class Queued {
+        private final Runnable task;
+        private final Consumer<Throwable> onAbort;
+        private volatile Timeout timeout;
+
+        private Queued(Runnable task, Consumer<Throwable> onAbort) {
+            this.task = task;
+            this.onAbort = onAbort;
+        }
+
+        private void cancelTimeout() {
+            Timeout t = timeout;
+            if (t != null) {
+                t.cancel();
+            }
+        }
+    }
+}
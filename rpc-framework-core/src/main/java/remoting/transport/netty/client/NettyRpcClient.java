@@ -1,33 +1,45 @@
 package remoting.transport.netty.client;
 
-import enums.CompressTypeEnum;
-import enums.SerializationTypeEnum;
+import enums.RpcConfigEnum;
+import enums.RpcErrorMessageEnum;
+import enums.RpcResponseCodeEnum;
+import exception.RpcException;
 import extension.ExtensionLoader;
 import factory.SingletonFactory;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import io.netty.util.Timeout;
+import loadbalance.EndpointStats;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
-import org.checkerframework.checker.units.qual.C;
+import provider.ServiceMethod;
 import registry.ServiceDiscovery;
+import registry.ServiceInstance;
 import remoting.constants.RpcConstants;
 import remoting.dto.RpcMessage;
 import remoting.dto.RpcRequest;
 import remoting.dto.RpcResponse;
 import remoting.transport.RpcRequestTransport;
+import remoting.transport.netty.NettyTransport;
+import remoting.transport.netty.client.codec.CodecRegistry;
 import remoting.transport.netty.client.codec.RpcMessageDecoder;
 import remoting.transport.netty.client.codec.RpcMessageEncoder;
+import utils.RpcConfigUtil;
 
 import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 
 /**
@@ -37,101 +49,404 @@ import java.util.function.BiConsumer;
  */
 @Slf4j
 public final class NettyRpcClient implements RpcRequestTransport {
+    // 客户端使用的协议版本，连接只支持 v1 的旧服务端时配置 rpc.protocol.version=1
+    static final byte PROTOCOL_VERSION = (byte) RpcConfigUtil.getInt(RpcConfigEnum.PROTOCOL_VERSION, RpcConstants.VERSION);
+    // 整个客户端共用的递增 requestId，在每个连接上也都唯一
+    private static final AtomicLong REQUEST_ID = new AtomicLong(0);
+    // key: 方法签名  value: 该连接上服务端分配的方法 id
+    private static final AttributeKey<Map<String, Integer>> METHOD_IDS = AttributeKey.valueOf("methodIds");
+    // channel 对应的服务地址，channel 关闭后也能据此重连
+    private static final AttributeKey<InetSocketAddress> ADDRESS = AttributeKey.valueOf("address");
+    // channel 在连接池中的槽位
+    private static final AttributeKey<Integer> SLOT = AttributeKey.valueOf("slot");
+    private static final boolean LEAST_PENDING = "least-pending".equals(RpcConfigUtil.getString(RpcConfigEnum.CLIENT_CONNECTION_SELECT, "round-robin"));
+    // 重连间隔从 100ms 开始每次翻倍，最长 10s
+    private static final long RECONNECT_BASE_DELAY_MILLIS = 100;
+    private static final long RECONNECT_MAX_DELAY_MILLIS = 10_000;
+    private static final int RECONNECT_MAX_ATTEMPTS = RpcConfigUtil.getInt(RpcConfigEnum.CLIENT_RECONNECT_MAX_ATTEMPTS, 10);
+    private static final int CONNECT_TIMEOUT_MILLIS = RpcConfigUtil.getInt(RpcConfigEnum.CLIENT_CONNECT_TIMEOUT, 5000);
+    private static final long UNREACHABLE_TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(RpcConfigUtil.getLong(RpcConfigEnum.CLIENT_UNREACHABLE_TTL, 3000));
+    private static final boolean PRECONNECT = RpcConfigUtil.getBoolean(RpcConfigEnum.CLIENT_PRECONNECT, true);
     private final ServiceDiscovery serviceDiscovery;
     private final UnprocessedRequests unprocessedRequests;
     private final ChannelProvider channelProvider;
     private final Bootstrap bootstrap;
     private final EventLoopGroup eventLoopGroup;
+    /**
+     * 正在建立的连接，每个槽位同时只有一次连接，并发的调用方和后台重连共用同一个结果
+     * key: 服务地址#槽位
+     * value: 连接结果
+     */
+    private final Map<String, CompletableFuture<Channel>> connecting = new ConcurrentHashMap<>();
+    // 正在后台重连的槽位，每个槽位同时只有一个重连任务
+    private final Set<String> reconnecting = ConcurrentHashMap.newKeySet();
+    /**
+     * 连接失败的地址，到期之前调用方直接失败，不再排队等待建连
+     * key: 服务地址
+     * value: 到期时间（System.nanoTime）
+     */
+    private final Map<String, Long> unreachable = new ConcurrentHashMap<>();
+    // 已经预先建立过连接的服务
+    private final Set<String> preconnectedServices = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
 
     public NettyRpcClient() {
         //初始化一些资源，比如EventLoopGroup, Bootstrap
-        eventLoopGroup = new NioEventLoopGroup();
+        eventLoopGroup = NettyTransport.newEventLoopGroup(0);
         bootstrap = new Bootstrap();
         bootstrap.group(eventLoopGroup)
-                .channel(NioSocketChannel.class)
+                .channel(NettyTransport.channelClass())
                 .handler(new LoggingHandler(LogLevel.INFO))
                 // 连接的超时时间，如果超过此时间无法建立连接，则失败
-                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, CONNECT_TIMEOUT_MILLIS)
                 .handler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     protected void initChannel(SocketChannel ch) throws Exception {
                         ChannelPipeline p = ch.pipeline();
+                        NettyTransport.addFlushHandlers(p);
                         //如果15秒内未向服务器发送数据，则发送心跳请求
                         p.addLast(new IdleStateHandler(0, 5, 0, TimeUnit.SECONDS));
                         // 编码器、解码器
                         p.addLast(new RpcMessageEncoder());
                         p.addLast(new RpcMessageDecoder());
                         // 业务handler
-                        p.addLast(new NettyRpcClientHandler());
+                        p.addLast(new NettyRpcClientHandler(NettyRpcClient.this));
                     }
                 });
+        NettyTransport.applyClientOptions(bootstrap);
         this.serviceDiscovery = ExtensionLoader.getExtensionLoader(ServiceDiscovery.class).getExtension("zk");
         this.unprocessedRequests = SingletonFactory.getInstance(UnprocessedRequests.class);
         this.channelProvider = SingletonFactory.getInstance(ChannelProvider.class);
     }
 
     /**
-     * 连接connect服务器并且获取channel，用来后续向服务器发送rpc消息
+     * 连接服务器，建立的连接放入槽位。同一个槽位已经在建连时直接返回同一个 future，不会重复连接
      * @param inetSocketAddress 服务地址
-     * @return 对应的channel
+     * @param probe             是否为后台重连。调用方建连时，最近连接失败过的地址直接失败；后台重连不受此限制
+     * @return 槽位中最终使用的channel
      */
-    @SneakyThrows
-    public Channel doConnect(InetSocketAddress inetSocketAddress) {
+    private CompletableFuture<Channel> connect(InetSocketAddress inetSocketAddress, int slot, boolean probe) {
+        String key = key(inetSocketAddress, slot);
+        if (!probe && isUnreachable(inetSocketAddress)) {
+            CompletableFuture<Channel> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new RpcException(RpcErrorMessageEnum.CLIENT_CONNECT_SERVER_FAILURE,
+                    inetSocketAddress + " is unreachable"));
+            return failed;
+        }
+        CompletableFuture<Channel> pending = connecting.get(key);
+        if (pending != null) {
+            return pending;
+        }
         CompletableFuture<Channel> completableFuture = new CompletableFuture<>();
+        pending = connecting.putIfAbsent(key, completableFuture);
+        if (pending != null) {
+            return pending;
+        }
         bootstrap.connect(inetSocketAddress).addListener((ChannelFutureListener) future -> {
             if (future.isSuccess()) {
-                log.info("The client has connected [{}] successful!", inetSocketAddress.toString());
-                completableFuture.complete(future.channel());
+                log.info("The client has connected [{}] slot [{}] successful!", inetSocketAddress, slot);
+                EndpointStats.of(inetSocketAddress).recordResult(true);
+                unreachable.remove(ServiceInstance.toAddress(inetSocketAddress));
+                Channel channel = register(inetSocketAddress, slot, future.channel());
+                connecting.remove(key, completableFuture);
+                completableFuture.complete(channel);
             } else {
-                throw new IllegalStateException();
+                EndpointStats.of(inetSocketAddress).recordConnectFailure();
+                if (UNREACHABLE_TTL_NANOS > 0) {
+                    unreachable.put(ServiceInstance.toAddress(inetSocketAddress), System.nanoTime() + UNREACHABLE_TTL_NANOS);
+                }
+                connecting.remove(key, completableFuture);
+                completableFuture.completeExceptionally(new RpcException(RpcErrorMessageEnum.CLIENT_CONNECT_SERVER_FAILURE,
+                        inetSocketAddress + ": " + future.cause()));
             }
         });
-        return completableFuture.get();
+        return completableFuture;
+    }
+
+    private boolean isUnreachable(InetSocketAddress inetSocketAddress) {
+        Long expireAt = unreachable.get(ServiceInstance.toAddress(inetSocketAddress));
+        if (expireAt == null) {
+            return false;
+        }
+        if (expireAt - System.nanoTime() > 0) {
+            return true;
+        }
+        unreachable.remove(ServiceInstance.toAddress(inetSocketAddress), expireAt);
+        return false;
+    }
+
+    private static String key(InetSocketAddress inetSocketAddress, int slot) {
+        return ServiceInstance.toAddress(inetSocketAddress) + "#" + slot;
+    }
+
+    /**
+     * channel 关闭时由 {@link NettyRpcClientHandler#channelInactive} 调用：
+     * 立即以异常结束该 channel 上排队和未完成的请求，如果它是连接池槽位中当前使用的 channel，则在后台重连
+     */
+    void onChannelInactive(Channel channel) {
+        InetSocketAddress inetSocketAddress = channel.attr(ADDRESS).get();
+        Integer slot = channel.attr(SLOT).get();
+        RpcException cause = new RpcException(RpcErrorMessageEnum.CLIENT_CONNECT_SERVER_FAILURE, "channel closed: " + inetSocketAddress);
+        // 先让排队的请求直接失败，否则在途请求失败时释放的窗口会把它们派发到已经关闭的连接上
+        InFlightWindow window = InFlightWindow.of(channel);
+        if (window != null) {
+            window.abort(cause);
+        }
+        unprocessedRequests.failAll(channel, cause);
+        if (inetSocketAddress != null && slot != null && channelProvider.remove(inetSocketAddress, slot, channel) && !closed) {
+            scheduleConnect(inetSocketAddress, slot, 0);
+        }
+    }
+
+    /**
+     * 预热：在后台为服务地址的连接池建立所有连接，之后的第一次调用不必等待建连
+     */
+    public void warmUp(InetSocketAddress inetSocketAddress) {
+        ChannelPool channelPool = channelProvider.getPool(inetSocketAddress);
+        for (int slot = 0; slot < channelPool.size(); slot++) {
+            if (channelProvider.get(inetSocketAddress, slot) == null) {
+                scheduleConnect(inetSocketAddress, slot, -1);
+            }
+        }
+    }
+
+    // 每个槽位同时只有一个后台连接任务
+    private void scheduleConnect(InetSocketAddress inetSocketAddress, int slot, int attempt) {
+        if (reconnecting.add(key(inetSocketAddress, slot))) {
+            reconnect(inetSocketAddress, slot, attempt);
+        }
+    }
+
+    // 在 EventLoop 上按指数退避延迟重连，不占用调用方线程。attempt 为 -1 时立即连接
+    private void reconnect(InetSocketAddress inetSocketAddress, int slot, int attempt) {
+        String key = key(inetSocketAddress, slot);
+        long delay = attempt < 0 ? 0 : Math.min(RECONNECT_MAX_DELAY_MILLIS, RECONNECT_BASE_DELAY_MILLIS << Math.min(attempt, 16));
+        eventLoopGroup.schedule(() -> {
+            // 调用方已经为这个槽位建好了连接
+            if (closed || channelProvider.get(inetSocketAddress, slot) != null) {
+                reconnecting.remove(key);
+                return;
+            }
+            connect(inetSocketAddress, slot, true).whenComplete((channel, throwable) -> {
+                if (throwable == null) {
+                    reconnecting.remove(key);
+                } else if (attempt + 1 >= RECONNECT_MAX_ATTEMPTS) {
+                    log.error("connect [{}] fail after {} attempts, give up", inetSocketAddress, attempt + 1);
+                    reconnecting.remove(key);
+                } else {
+                    reconnect(inetSocketAddress, slot, Math.max(attempt, 0) + 1);
+                }
+            });
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 把新建的连接放入槽位。调用方和后台同时为同一个槽位建立了连接时，保留先放入的可用连接，关闭新建的这个
+     * @return 槽位中最终使用的连接
+     */
+    private Channel register(InetSocketAddress inetSocketAddress, int slot, Channel channel) {
+        channel.attr(ADDRESS).set(inetSocketAddress);
+        channel.attr(SLOT).set(slot);
+        ChannelPool channelPool = channelProvider.getPool(inetSocketAddress);
+        synchronized (channelPool) {
+            Channel current = channelPool.get(slot);
+            if (current != null && current != channel && current.isActive()) {
+                channel.close();
+                return current;
+            }
+            channelPool.set(slot, channel);
+        }
+        return channel;
     }
 
     @Override
     public Object sendRpcRequest(RpcRequest rpcRequest) {
         // 创建返回值
         CompletableFuture<RpcResponse<Object>> resultFuture = new CompletableFuture<>();
+        // 截止时间从调用开始算起，建连、排队和重发耗掉的时间都计算在内
+        if (rpcRequest.getTimeout() > 0 && rpcRequest.getDeadline() == 0) {
+            rpcRequest.setDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(rpcRequest.getTimeout()));
+        }
         // 通过rpcRequest构造service name
-        String rpcServiceName = rpcRequest.toRpcProperties().toRpcServiceName();
+        String rpcServiceName = rpcRequest.getRpcServiceName();
         // 获取服务地址
-        InetSocketAddress inetSocketAddress = serviceDiscovery.lookupService(rpcServiceName);
-        // 获取与服务地址关联的channel
-        Channel channel = getChannel(inetSocketAddress);
-        if (channel.isActive()) {
-            // 放置未处理的请求
-            unprocessedRequests.put(rpcRequest.getRequestId(), resultFuture);
-            RpcMessage rpcMessage = new RpcMessage();
-            rpcMessage.setData(rpcRequest);
-            rpcMessage.setCodec(SerializationTypeEnum.PROTOSTUFF.getCode());
-            rpcMessage.setCompress(CompressTypeEnum.GZIP.getCode());
-            rpcMessage.setMessageType(RpcConstants.REQUEST_TYPE);
-            channel.writeAndFlush(rpcMessage).addListener((ChannelFutureListener) future -> {
-                if (future.isSuccess()) {
-                    log.info("client send message: [{}]", rpcMessage);
-                } else {
-                    future.channel().close();
-                    resultFuture.completeExceptionally(future.cause());
-                    log.error("Send failed:", future.cause());
+        InetSocketAddress inetSocketAddress = serviceDiscovery.lookupService(rpcRequest);
+        preConnect(rpcServiceName);
+        String signature = ServiceMethod.signature(rpcServiceName, rpcRequest.getMethodName(), rpcRequest.getParamTypes());
+        // 获取与服务地址关联的channel，需要建连时不阻塞调用线程，连接建立后再发送
+        CompletableFuture<Channel> channelFuture = getChannelAsync(inetSocketAddress);
+        // 建连的等待也受截止时间限制，不必等到 rpc.client.connect-timeout
+        Timeout connectTimeout = channelFuture.isDone() || rpcRequest.getDeadline() == 0 ? null
+                : UnprocessedRequests.newTimeout(t -> resultFuture.completeExceptionally(new RpcException(RpcErrorMessageEnum.REQUEST_TIMEOUT,
+                "deadline exceeded while connecting to " + inetSocketAddress)), rpcRequest.getDeadline() - System.nanoTime());
+        channelFuture.whenComplete((channel, throwable) -> {
+            if (connectTimeout != null) {
+                connectTimeout.cancel();
+            }
+            if (resultFuture.isDone()) {
+                return;
+            }
+            if (throwable != null) {
+                resultFuture.completeExceptionally(throwable);
+            } else {
+                send(channel, rpcRequest, signature, resultFuture);
+            }
+        });
+        return resultFuture;
+    }
+
+    /**
+     * 第一次调用某个服务时，在后台连接服务发现返回的所有地址，之后负载均衡选到其它地址时不必等待建连
+     */
+    private void preConnect(String rpcServiceName) {
+        if (PRECONNECT && preconnectedServices.add(rpcServiceName)) {
+            for (InetSocketAddress inetSocketAddress : serviceDiscovery.lookupAllServices(rpcServiceName)) {
+                warmUp(inetSocketAddress);
+            }
+        }
+    }
+
+    /**
+     * 在连接的在途窗口内发送请求，窗口已满时在本地排队，排队也满时立即失败
+     */
+    private void send(Channel channel, RpcRequest rpcRequest, String signature, CompletableFuture<RpcResponse<Object>> resultFuture) {
+        InFlightWindow window = InFlightWindow.of(channel);
+        if (window == null) {
+            send(channel, rpcRequest, signature, resultFuture, null);
+            return;
+        }
+        if (!window.acquire(() -> send(channel, rpcRequest, signature, resultFuture, window), resultFuture::completeExceptionally,
+                rpcRequest.getDeadline())) {
+            resultFuture.completeExceptionally(new RpcException(RpcErrorMessageEnum.CLIENT_OVERLOADED, String.valueOf(channel.remoteAddress())));
+        }
+    }
+
+    /**
+     * 发送请求。该连接上已经学到方法 id 时只发送 id 和参数；
+     * 服务端不认识这个 id 时丢弃缓存，改用完整形式重发一次。
+     * 本地的超时和发给服务端的超时都按截止时间剩余的时间计算，重发不会延长调用方等待的时间
+     * @param window 已经占用的在途窗口，请求完成时释放；null 表示不限制
+     */
+    private void send(Channel channel, RpcRequest rpcRequest, String signature, CompletableFuture<RpcResponse<Object>> resultFuture,
+                      InFlightWindow window) {
+        if (rpcRequest.getDeadline() != 0) {
+            long remainingNanos = rpcRequest.getDeadline() - System.nanoTime();
+            if (remainingNanos <= 0) {
+                if (window != null) {
+                    window.release(0, false, null);
                 }
-            });
-        } else {
-            throw new IllegalStateException();
+                resultFuture.completeExceptionally(new RpcException(RpcErrorMessageEnum.REQUEST_TIMEOUT,
+                        "deadline exceeded before sending to " + channel.remoteAddress()));
+                return;
+            }
+            // 向上取整到毫秒，不足 1ms 时不会变成 0（不限制）
+            rpcRequest.setTimeout(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remainingNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1)));
         }
-        return resultFuture;
+        Map<String, Integer> methodIds = methodIds(channel);
+        Integer methodId = methodIds.get(signature);
+        long requestId = REQUEST_ID.incrementAndGet();
+        // v1 的旧服务端只会在响应体中回传 String requestId，所以 v1 下把 id 放进请求体
+        String bodyRequestId = PROTOCOL_VERSION == RpcConstants.VERSION_1 ? String.valueOf(requestId) : null;
+        rpcRequest.setRequestId(bodyRequestId);
+        RpcRequest wireRequest = methodId == null ? rpcRequest : RpcRequest.builder()
+                .methodId(methodId)
+                .parameters(rpcRequest.getParameters())
+                .requestId(bodyRequestId)
+                .timeout(rpcRequest.getTimeout())
+                .build();
+        CompletableFuture<RpcResponse<Object>> responseFuture = new CompletableFuture<>();
+        // 服务地址的活跃请求数和响应时间，供 leastactive、peakewma、p2c 负载均衡使用
+        InetSocketAddress inetSocketAddress = channel.attr(ADDRESS).get();
+        EndpointStats endpointStats = inetSocketAddress == null ? null : EndpointStats.of(inetSocketAddress);
+        if (endpointStats != null) {
+            endpointStats.begin();
+        }
+        long sentAt = System.nanoTime();
+        responseFuture.whenComplete((rpcResponse, throwable) -> {
+            long rttNanos = System.nanoTime() - sentAt;
+            // 超时、连接失败和 SERVER_BUSY 都说明服务端已经过载
+            boolean dropped = throwable != null
+                    || Integer.valueOf(RpcResponseCodeEnum.SERVER_BUSY.getCode()).equals(rpcResponse.getCode());
+            if (endpointStats != null) {
+                endpointStats.end(rttNanos, !dropped);
+            }
+            if (window != null) {
+                window.release(rttNanos, dropped, rpcResponse == null ? null : rpcResponse.getCapacity());
+            }
+            if (throwable != null) {
+                resultFuture.completeExceptionally(throwable);
+            } else if (methodId != null && Integer.valueOf(RpcResponseCodeEnum.UNKNOWN_METHOD_ID.getCode()).equals(rpcResponse.getCode())) {
+                methodIds.remove(signature, methodId);
+                send(channel, rpcRequest, signature, resultFuture);
+            } else {
+                if (methodId == null && rpcResponse.getMethodId() != 0) {
+                    methodIds.put(signature, rpcResponse.getMethodId());
+                }
+                resultFuture.complete(rpcResponse);
+            }
+        });
+        // 放置未处理的请求
+        unprocessedRequests.put(requestId, responseFuture, channel, rpcRequest.getTimeout());
+        RpcMessage rpcMessage = new RpcMessage();
+        rpcMessage.setVersion(PROTOCOL_VERSION);
+        rpcMessage.setRequestId(requestId);
+        rpcMessage.setData(wireRequest);
+        rpcMessage.setCodec(CodecRegistry.getDefaultSerializer());
+        rpcMessage.setCompress(CodecRegistry.getDefaultCompress());
+        rpcMessage.setMessageType(RpcConstants.REQUEST_TYPE);
+        channel.writeAndFlush(rpcMessage).addListener((ChannelFutureListener) future -> {
+            if (future.isSuccess()) {
+                log.info("client send message: [{}]", rpcMessage);
+            } else {
+                future.channel().close();
+                unprocessedRequests.fail(requestId, future.cause());
+                log.error("Send failed:", future.cause());
+            }
+        });
     }
 
+    // 服务端分配的方法 id 只在同一个连接上有效，所以按 channel 缓存
+    private static Map<String, Integer> methodIds(Channel channel) {
+        Attribute<Map<String, Integer>> attribute = channel.attr(METHOD_IDS);
+        Map<String, Integer> methodIds = attribute.get();
+        if (methodIds == null) {
+            methodIds = new ConcurrentHashMap<>();
+            Map<String, Integer> old = attribute.setIfAbsent(methodIds);
+            if (old != null) {
+                methodIds = old;
+            }
+        }
+        return methodIds;
+    }
+
+    /**
+     * 从服务地址的连接池中按 rpc.client.connection.select 选择一个连接，该槽位还没有可用连接时建立连接，
+     * 等待连接建立，超过 rpc.client.connect-timeout 时失败
+     */
+    @SneakyThrows
     public Channel getChannel(InetSocketAddress inetSocketAddress) {
-        Channel channel = channelProvider.get(inetSocketAddress);
-        if (channel == null) {
-            channel = doConnect(inetSocketAddress);
-            channelProvider.set(inetSocketAddress, channel);
+        try {
+            return getChannelAsync(inetSocketAddress).get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
         }
-        return channel;
+    }
+
+    /**
+     * 同 {@link #getChannel}，不阻塞调用线程，需要建连时在连接建立后完成
+     */
+    public CompletableFuture<Channel> getChannelAsync(InetSocketAddress inetSocketAddress) {
+        ChannelPool channelPool = channelProvider.getPool(inetSocketAddress);
+        int slot = LEAST_PENDING ? channelPool.leastPendingSlot(unprocessedRequests) : channelPool.nextSlot();
+        Channel channel = channelProvider.get(inetSocketAddress, slot);
+        if (channel != null) {
+            return CompletableFuture.completedFuture(channel);
+        }
+        return connect(inetSocketAddress, slot, false);
     }
 
     public void close() {
+        closed = true;
         eventLoopGroup.shutdownGracefully();
     }
 }
@@ -12,8 +12,6 @@ import remoting.constants.RpcConstants;
 import remoting.dto.RpcMessage;
 import remoting.dto.RpcResponse;
 
-import java.net.InetSocketAddress;
-
 /**
  * 定制客户端ChannelHandler以处理服务器发送的数据
  * <p>
@@ -27,9 +25,9 @@ public class NettyRpcClientHandler extends ChannelInboundHandlerAdapter {
     private final UnprocessedRequests unprocessedRequests;
     private final NettyRpcClient nettyRpcClient;
 
-    public NettyRpcClientHandler() {
+    public NettyRpcClientHandler(NettyRpcClient nettyRpcClient) {
         this.unprocessedRequests = SingletonFactory.getInstance(UnprocessedRequests.class);
-        this.nettyRpcClient = SingletonFactory.getInstance(NettyRpcClient.class);
+        this.nettyRpcClient = nettyRpcClient;
     }
 
     /**
@@ -49,7 +47,10 @@ public class NettyRpcClientHandler extends ChannelInboundHandlerAdapter {
                     log.info("heart [{}]", tmp.getData());
                 } else if (messageType == RpcConstants.RESPONSE_TYPE) {
                     RpcResponse<Object> rpcResponse = (RpcResponse<Object>) tmp.getData();
-                    unprocessedRequests.complete(rpcResponse);
+                    // v1 以响应体中回传的 requestId 关联请求，v2 以 header 中的 requestId 关联请求
+                    long requestId = tmp.getVersion() == RpcConstants.VERSION_1
+                            ? Long.parseLong(rpcResponse.getRequestId()) : tmp.getRequestId();
+                    unprocessedRequests.complete(requestId, rpcResponse);
                 }
             }
         } finally {
@@ -69,8 +70,10 @@ public class NettyRpcClientHandler extends ChannelInboundHandlerAdapter {
             IdleState state = ((IdleStateEvent) evt).state();
             if (state == IdleState.WRITER_IDLE) {
                 log.info("write idle happen [{}]", ctx.channel().remoteAddress());
-                Channel channel = nettyRpcClient.getChannel((InetSocketAddress) ctx.channel().remoteAddress());
+                // 心跳只发给空闲的这个连接，不能借 getChannel 新建连接
+                Channel channel = ctx.channel();
                 RpcMessage rpcMessage = new RpcMessage();
+                rpcMessage.setVersion(NettyRpcClient.PROTOCOL_VERSION);
                 rpcMessage.setCodec(SerializationTypeEnum.PROTOSTUFF.getCode());
                 rpcMessage.setCompress(CompressTypeEnum.GZIP.getCode());
                 rpcMessage.setMessageType(RpcConstants.HEARTBEAT_REQUEST_TYPE);
@@ -82,6 +85,16 @@ public class NettyRpcClientHandler extends ChannelInboundHandlerAdapter {
         }
     }
 
+    /**
+     * 连接断开时立即结束该连接上未完成的请求，并在后台重连
+     */
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        log.warn("channel inactive [{}]", ctx.channel());
+        nettyRpcClient.onChannelInactive(ctx.channel());
+        super.channelInactive(ctx);
+    }
+
     /**
      * 在处理客户端消息时发生异常时调用
      * @param ctx
@@ -1,29 +1,205 @@
 package remoting.transport.netty.client;
 
+import enums.RpcErrorMessageEnum;
+import exception.RpcException;
+import io.netty.channel.Channel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.collection.LongObjectMap;
+import lombok.extern.slf4j.Slf4j;
 import remoting.dto.RpcResponse;
+import utils.ThreadPoolFactoryUtils;
 
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 服务器未处理的请求
+ * <p>
+ * 以 header 中的 long requestId 为键。按 requestId 分段加锁的 LongObjectHashMap，键不装箱。
+ * 每个请求在时间轮上登记超时任务，到期时移除并以超时失败结束 future，响应到达时取消超时任务，都是 O(1)。
+ * 同时按 channel 记录请求，channel 关闭时立即结束该 channel 上所有未完成的请求，不必等到超时
  * @author Chen
  * @create 2021-03-28 22:21
  */
+@Slf4j
 public class UnprocessedRequests {
-    private static final Map<String, CompletableFuture<RpcResponse<Object>>> UNPROCESSED_RESPONSE_FUTURES = new ConcurrentHashMap<>();
+    private static final int STRIPES = 32;
+    private static final LongObjectMap<PendingRequest>[] UNPROCESSED_RESPONSE_FUTURES = newStripes();
+    // 每个 channel 上未完成的 requestId
+    private static final AttributeKey<LongObjectMap<Boolean>> CHANNEL_REQUESTS = AttributeKey.valueOf("channelRequests");
+    // 10ms 一格，超时的误差在一格以内
+    private static final Timer TIMER = new HashedWheelTimer(ThreadPoolFactoryUtils.createThreadFactory("rpc-request-timeout", true),
+            10, TimeUnit.MILLISECONDS, 512);
 
-    public void put(String requestId, CompletableFuture<RpcResponse<Object>> future) {
-        UNPROCESSED_RESPONSE_FUTURES.put(requestId, future);
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static LongObjectMap<PendingRequest>[] newStripes() {
+        LongObjectMap<PendingRequest>[] stripes = new LongObjectMap[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LongObjectHashMap<>();
+        }
+        return stripes;
+    }
+
+    private static LongObjectMap<PendingRequest> stripe(long requestId) {
+        return UNPROCESSED_RESPONSE_FUTURES[(int) (requestId & (STRIPES - 1))];
+    }
+
+    /**
+     * 在请求超时使用的时间轮上登记一个任务，请求发出之前的排队、建连阶段也按截止时间在同一个时间轮上超时
+     */
+    static Timeout newTimeout(TimerTask task, long delayNanos) {
+        return TIMER.newTimeout(task, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param channel       发送请求的 channel
+     * @param timeoutMillis 超时时间，小于等于 0 表示不超时
+     */
+    public void put(long requestId, CompletableFuture<RpcResponse<Object>> future, Channel channel, long timeoutMillis) {
+        LongObjectMap<Boolean> channelRequests = channelRequests(channel);
+        PendingRequest pendingRequest = new PendingRequest(future, channelRequests);
+        LongObjectMap<PendingRequest> stripe = stripe(requestId);
+        synchronized (stripe) {
+            stripe.put(requestId, pendingRequest);
+        }
+        synchronized (channelRequests) {
+            channelRequests.put(requestId, Boolean.TRUE);
+        }
+        inFlight.increment();
+        if (timeoutMillis > 0) {
+            pendingRequest.timeout = TIMER.newTimeout(t -> expire(requestId, timeoutMillis), timeoutMillis, TimeUnit.MILLISECONDS);
+        }
     }
 
-    public void complete(RpcResponse<Object> rpcResponse) {
-        CompletableFuture<RpcResponse<Object>> future = UNPROCESSED_RESPONSE_FUTURES.remove(rpcResponse.getRequestId());
-        if (null != future) {
-            future.complete(rpcResponse);
+    public void complete(long requestId, RpcResponse<Object> rpcResponse) {
+        PendingRequest pendingRequest = remove(requestId);
+        if (null != pendingRequest) {
+            if (pendingRequest.timeout != null) {
+                pendingRequest.timeout.cancel();
+            }
+            pendingRequest.future.complete(rpcResponse);
         } else {
-            throw new IllegalStateException();
+            // 请求已经超时被移除，迟到的响应直接丢弃
+            log.warn("discard response of unknown or expired request [{}]", requestId);
+        }
+    }
+
+    /**
+     * 以异常结束请求，例如请求发送失败
+     */
+    public void fail(long requestId, Throwable cause) {
+        PendingRequest pendingRequest = remove(requestId);
+        if (null != pendingRequest) {
+            if (pendingRequest.timeout != null) {
+                pendingRequest.timeout.cancel();
+            }
+            pendingRequest.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * channel 关闭时调用，以异常结束该 channel 上所有未完成的请求
+     */
+    public void failAll(Channel channel, Throwable cause) {
+        LongObjectMap<Boolean> channelRequests = channel.attr(CHANNEL_REQUESTS).get();
+        if (channelRequests == null) {
+            return;
+        }
+        long[] requestIds;
+        synchronized (channelRequests) {
+            requestIds = new long[channelRequests.size()];
+            int i = 0;
+            for (LongObjectMap.PrimitiveEntry<Boolean> entry : channelRequests.entries()) {
+                requestIds[i++] = entry.key();
+            }
+        }
+        for (long requestId : requestIds) {
+            fail(requestId, cause);
+        }
+    }
+
+    private static LongObjectMap<Boolean> channelRequests(Channel channel) {
+        Attribute<LongObjectMap<Boolean>> attribute = channel.attr(CHANNEL_REQUESTS);
+        LongObjectMap<Boolean> channelRequests = attribute.get();
+        if (channelRequests == null) {
+            channelRequests = new LongObjectHashMap<>();
+            LongObjectMap<Boolean> old = attribute.setIfAbsent(channelRequests);
+            if (old != null) {
+                channelRequests = old;
+            }
+        }
+        return channelRequests;
+    }
+
+    private void expire(long requestId, long timeoutMillis) {
+        PendingRequest pendingRequest = remove(requestId);
+        if (null != pendingRequest) {
+            timedOut.increment();
+            pendingRequest.future.completeExceptionally(new RpcException(RpcErrorMessageEnum.REQUEST_TIMEOUT,
+                    "requestId:" + requestId + ", timeout:" + timeoutMillis + "ms"));
+        }
+    }
+
+    private PendingRequest remove(long requestId) {
+        LongObjectMap<PendingRequest> stripe = stripe(requestId);
+        PendingRequest pendingRequest;
+        synchronized (stripe) {
+            pendingRequest = stripe.remove(requestId);
+        }
+        if (pendingRequest != null) {
+            synchronized (pendingRequest.channelRequests) {
+                pendingRequest.channelRequests.remove(requestId);
+            }
+            inFlight.decrement();
+        }
+        return pendingRequest;
+    }
+
+    /**
+     * @return 已发送、还没有收到响应也没有超时的请求数
+     */
+    public long getInFlightCount() {
+        return inFlight.sum();
+    }
+
+    /**
+     * @return 该 channel 上未完成的请求数，负载均衡和连接选择可据此选择最空闲的连接
+     */
+    public int getPendingCount(Channel channel) {
+        LongObjectMap<Boolean> channelRequests = channel.attr(CHANNEL_REQUESTS).get();
+        if (channelRequests == null) {
+            return 0;
+        }
+        synchronized (channelRequests) {
+            return channelRequests.size();
+        }
+    }
+
+    /**
+     * @return 累计超时的请求数
+     */
+    public long getTimedOutCount() {
+        return timedOut.sum();
+    }
+
+    private static final class PendingRequest {
+        private final CompletableFuture<RpcResponse<Object>> future;
+        private final LongObjectMap<Boolean> channelRequests;
+        private volatile Timeout timeout;
+
+        private PendingRequest(CompletableFuture<RpcResponse<Object>> future, LongObjectMap<Boolean> channelRequests) {
+            this.future = future;
+            this.channelRequests = channelRequests;
         }
     }
 }
@@ -0,0 +1,112 @@
+package remoting.transport.netty.client.codec;
+
+import compress.Compress;
+import enums.CompressTypeEnum;
+import enums.RpcConfigEnum;
+import enums.RpcErrorMessageEnum;
+import enums.SerializationTypeEnum;
+import exception.RpcException;
+import extension.ExtensionLoader;
+import lombok.extern.slf4j.Slf4j;
+import serialize.Serializer;
+import utils.RpcConfigUtil;
+
+/**
+ * 序列化器、压缩器的分发表。
+ * 类加载时按 {@link SerializationTypeEnum}、{@link CompressTypeEnum} 一次性解析出所有扩展实例，
+ * 以 header 中的 codec/compress 字节为下标存入数组，编解码时只需一次数组访问。
+ * @author Chen
+ * @create 2026-10-17 10:20
+ */
+@Slf4j
+public final class CodecRegistry {
+
+    private static final Serializer[] SERIALIZERS = new Serializer[256];
+    private static final Compress[] COMPRESSES = new Compress[256];
+    // 发送消息时使用的压缩类型，由 rpc.compress.type 配置，默认 gzip
+    private static final byte DEFAULT_COMPRESS;
+    // 客户端发送请求时使用的序列化类型，由 rpc.serialization.type 配置，默认 protostuff
+    private static final byte DEFAULT_SERIALIZER;
+
+    static {
+        for (SerializationTypeEnum type : SerializationTypeEnum.values()) {
+            SERIALIZERS[type.getCode() & 0xFF] = load(Serializer.class, type.getName());
+        }
+        for (CompressTypeEnum type : CompressTypeEnum.values()) {
+            // NONE 表示不压缩，编解码器直接跳过，不需要扩展实现
+            if (type == CompressTypeEnum.NONE) {
+                continue;
+            }
+            COMPRESSES[type.getCode() & 0xFF] = load(Compress.class, type.getName());
+        }
+        String compressName = RpcConfigUtil.getString(RpcConfigEnum.COMPRESS_TYPE, CompressTypeEnum.GZIP.getName());
+        CompressTypeEnum compressType = CompressTypeEnum.getByName(compressName);
+        if (compressType == null || (compressType != CompressTypeEnum.NONE && COMPRESSES[compressType.getCode() & 0xFF] == null)) {
+            throw new RpcException(RpcErrorMessageEnum.UNKNOWN_COMPRESS_TYPE, compressName);
+        }
+        DEFAULT_COMPRESS = compressType.getCode();
+        String codecName = RpcConfigUtil.getString(RpcConfigEnum.SERIALIZATION_TYPE, SerializationTypeEnum.PROTOSTUFF.getName());
+        SerializationTypeEnum codecType = SerializationTypeEnum.getByName(codecName);
+        if (codecType == null || SERIALIZERS[codecType.getCode() & 0xFF] == null) {
+            throw new RpcException(RpcErrorMessageEnum.UNKNOWN_SERIALIZATION_TYPE, codecName);
+        }
+        DEFAULT_SERIALIZER = codecType.getCode();
+    }
+
+    private CodecRegistry() {
+    }
+
+    /**
+     * @return 客户端发送请求时使用的序列化类型
+     */
+    public static byte getDefaultSerializer() {
+        return DEFAULT_SERIALIZER;
+    }
+
+    /**
+     * @return 发送消息时使用的压缩类型
+     */
+    public static byte getDefaultCompress() {
+        return DEFAULT_COMPRESS;
+    }
+
+    /**
+     * 根据 header 中的序列化类型取序列化器
+     * @param codec 序列化类型
+     * @return 序列化器
+     */
+    public static Serializer getSerializer(byte codec) {
+        Serializer serializer = SERIALIZERS[codec & 0xFF];
+        if (serializer == null) {
+            throw new RpcException(RpcErrorMessageEnum.UNKNOWN_SERIALIZATION_TYPE, String.valueOf(codec));
+        }
+        return serializer;
+    }
+
+    /**
+     * 根据 header 中的压缩类型取压缩器
+     * @param compress 压缩类型
+     * @return 压缩器
+     */
+    public static Compress getCompress(byte compress) {
+        Compress c = COMPRESSES[compress & 0xFF];
+        if (c == null) {
+            throw new RpcException(RpcErrorMessageEnum.UNKNOWN_COMPRESS_TYPE, String.valueOf(compress));
+        }
+        return c;
+    }
+
+    // 某个类型没有对应的扩展实现时只记录日志，真正用到时再由 get 方法报错
+    private static <T> T load(Class<T> type, String name) {
+        try {
+            T extension = ExtensionLoader.getExtensionLoader(type).getExtension(name);
+            if (extension == null) {
+                log.warn("Extension [{}] of [{}] can not be instantiated", name, type.getName());
+            }
+            return extension;
+        } catch (RuntimeException e) {
+            log.warn("No extension [{}] of [{}] is registered", name, type.getName());
+            return null;
+        }
+    }
+}
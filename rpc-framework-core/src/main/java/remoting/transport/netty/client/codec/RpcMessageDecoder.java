@@ -1,10 +1,8 @@
 package remoting.transport.netty.client.codec;
 
-import compress.Compress;
 import enums.CompressTypeEnum;
-import enums.SerializationTypeEnum;
-import extension.ExtensionLoader;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +12,8 @@ import remoting.dto.RpcRequest;
 import remoting.dto.RpcResponse;
 import serialize.Serializer;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 
 /**
@@ -30,6 +30,12 @@ import java.util.Arrays;
  * 4B  magic code（魔法数）   1B version（版本）   4B full length（消息长度）    1B messageType（消息类型）
  * 1B compress（压缩类型） 1B codec（序列化类型）    4B  requestId（请求的Id）
  * body（object类型数据）
+ *
+ * v2 只把 requestId 扩展为 8 字节，header 共 20 字节，其余字段位置不变：
+ *   0     1     2     3     4        5     6     7     8         9          10      11     12 ... 19 20
+ *   +-----+-----+-----+-----+--------+----+----+----+------+-----------+-------+--------+-------------+
+ *   |   magic   code        |version | full length         | messageType| codec|compress|  RequestId  |
+ *   +-----------------------+--------+---------------------+-----------+-----------+----+-------------+
  * </pre>
  *
  * 自定义解码器。负责处理 入站 消息，将ByteBuf消息格式的对象转换为我们需要的业务对象。
@@ -80,18 +86,20 @@ public class RpcMessageDecoder extends LengthFieldBasedFrameDecoder {
         return decoded;
     }
 
-    private Object decodeFrame(ByteBuf in) {
+    private Object decodeFrame(ByteBuf in) throws IOException {
         //注意：必须按照顺序读！
         checkMagicNumber(in);
-        checkVersion(in);
+        byte version = checkVersion(in);
         int fullLength = in.readInt();
         // 构建 RpcMessage对象
         byte messageType = in.readByte();
         byte codecType = in.readByte();
         byte compressType = in.readByte();
-        int requestId = in.readInt();
+        long requestId = version == RpcConstants.VERSION_1 ? in.readInt() : in.readLong();
         RpcMessage rpcMessage = RpcMessage.builder()
+                .version(version)
                 .codec(codecType)
+                .compress(compressType)
                 .requestId(requestId)
                 .messageType(messageType).build();
         // 检查是否是心跳类型的数据
@@ -104,38 +112,32 @@ public class RpcMessageDecoder extends LengthFieldBasedFrameDecoder {
             return rpcMessage;
         }
 
-        int bodyLength = fullLength - RpcConstants.HEAD_LENGTH;
+        int bodyLength = fullLength - (version == RpcConstants.VERSION_1 ? RpcConstants.HEAD_LENGTH : RpcConstants.HEAD_LENGTH_V2);
         if (bodyLength > 0) {
-            byte[] bs = new byte[bodyLength];
-            in.readBytes(bs);
-            // 解压缩
-            String compressName = CompressTypeEnum.getName(compressType);
-            Compress compress = ExtensionLoader.getExtensionLoader(Compress.class)
-                    .getExtension(compressName);
-            bs = compress.decompress(bs);
-            // 反序列化
-            String codecName = SerializationTypeEnum.getName(rpcMessage.getCodec());
-            log.info("codec name: [{}] ", codecName);
-            Serializer serializer = ExtensionLoader.getExtensionLoader(Serializer.class)
-                    .getExtension(codecName);
-            //
-            if (messageType == RpcConstants.REQUEST_TYPE) {
-                RpcRequest tmpValue = serializer.deserialize(bs, RpcRequest.class);
-                rpcMessage.setData(tmpValue);
-            } else {
-                RpcResponse tmpValue = serializer.deserialize(bs, RpcResponse.class);
-                rpcMessage.setData(tmpValue);
+            // 直接从 frame 中解压、反序列化，不再先拷贝出 byte[]；header 标明未压缩时跳过解压
+            Serializer serializer = CodecRegistry.getSerializer(codecType);
+            InputStream frameIn = new ByteBufInputStream(in, bodyLength);
+            try (InputStream bodyIn = compressType == CompressTypeEnum.NONE.getCode()
+                    ? frameIn : CodecRegistry.getCompress(compressType).decompress(frameIn)) {
+                if (messageType == RpcConstants.REQUEST_TYPE) {
+                    RpcRequest tmpValue = serializer.deserialize(bodyIn, RpcRequest.class);
+                    rpcMessage.setData(tmpValue);
+                } else {
+                    RpcResponse tmpValue = serializer.deserialize(bodyIn, RpcResponse.class);
+                    rpcMessage.setData(tmpValue);
+                }
             }
         }
         return rpcMessage;
     }
 
-    // 检查header中的协议版本是否正确
-    private void checkVersion(ByteBuf in) {
+    // 检查header中的协议版本是否正确，v1、v2 都可以解析
+    private byte checkVersion(ByteBuf in) {
         byte version = in.readByte();
-        if (version != RpcConstants.VERSION) {
+        if (version != RpcConstants.VERSION_1 && version != RpcConstants.VERSION_2) {
             throw new RuntimeException("version isn't compatible" + version);
         }
+        return version;
     }
     // 检查魔数是否正确，匹配不上表示传输的并非是我们自定义的包。
     private void checkMagicNumber(ByteBuf in) {
@@ -2,17 +2,19 @@ package remoting.transport.netty.client.codec;
 
 import compress.Compress;
 import enums.CompressTypeEnum;
-import enums.SerializationTypeEnum;
-import extension.ExtensionLoader;
+import enums.RpcConfigEnum;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 import lombok.extern.slf4j.Slf4j;
 import remoting.constants.RpcConstants;
 import remoting.dto.RpcMessage;
 import serialize.Serializer;
+import utils.RpcConfigUtil;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * 自定义编码器。负责处理 出站 消息，将消息格式转换为byte[]然后写入到字节数据的容器byteBuf对象中。
@@ -22,52 +24,73 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Slf4j
 public class RpcMessageEncoder extends MessageToByteEncoder<RpcMessage> {
 
-    private static final AtomicInteger ATOMIC_INTEGER = new AtomicInteger(0);
+    // 默认 1KB 以下的消息体不压缩：gzip 的头部和 deflate 初始化开销远大于小消息能省下的字节
+    private static final int COMPRESS_THRESHOLD = RpcConfigUtil.getInt(RpcConfigEnum.COMPRESS_THRESHOLD, 1024);
 
     //出站：向网络流出数据，编码
     @Override
     protected void encode(ChannelHandlerContext channelHandlerContext, RpcMessage rpcMessage, ByteBuf out) throws Exception {
         try {
+            int headerIndex = out.writerIndex();
+            byte version = rpcMessage.getVersion() == 0 ? RpcConstants.VERSION : rpcMessage.getVersion();
             out.writeBytes(RpcConstants.MAGIC_NUMBER);
-            out.writeByte(RpcConstants.VERSION);
+            out.writeByte(version);
             // 预留一个空间，写入full length消息长度
             out.writerIndex(out.writerIndex() + 4);
             byte messageType = rpcMessage.getMessageType();
             out.writeByte(messageType);
             out.writeByte(rpcMessage.getCodec());
-            out.writeByte(CompressTypeEnum.GZIP.getCode());
-            out.writeInt(ATOMIC_INTEGER.getAndIncrement());
-            // 构建full length
-            byte[] bodyBytes = null;
-            int fullLength = RpcConstants.HEAD_LENGTH;
+            // 先按不压缩写入，确实压缩了消息体之后再改写
+            int compressIndex = out.writerIndex();
+            out.writeByte(CompressTypeEnum.NONE.getCode());
+            // v1 的 header 只有 4 字节的 requestId，真正的关联标识在消息体中
+            if (version == RpcConstants.VERSION_1) {
+                out.writeInt((int) rpcMessage.getRequestId());
+            } else {
+                out.writeLong(rpcMessage.getRequestId());
+            }
             // 如果消息类型不是心跳类型的，fullLength = head length + body length
             if (messageType != RpcConstants.HEARTBEAT_REQUEST_TYPE
                     && messageType != RpcConstants.HEARTBEAT_RESPONSE_TYPE) {
-                // 序列化object
-                String codecName = SerializationTypeEnum.getName(rpcMessage.getCodec());
-                log.info("codec name: [{}] ", codecName);
-                Serializer serializer = ExtensionLoader.getExtensionLoader(Serializer.class)
-                        .getExtension(codecName);
-                bodyBytes = serializer.serialize(rpcMessage.getData());
-                // 压缩bytes
-                String compressName = CompressTypeEnum.getName(rpcMessage.getCompress());
-                Compress compress = ExtensionLoader.getExtensionLoader(Compress.class)
-                        .getExtension(compressName);
-                bodyBytes = compress.compress(bodyBytes);
-                fullLength += bodyBytes.length;
-            }
-
-            if (bodyBytes != null) {
-                out.writeBytes(bodyBytes);
+                // 序列化结果直接写入 out，不产生中间 byte[]
+                Serializer serializer = CodecRegistry.getSerializer(rpcMessage.getCodec());
+                int bodyIndex = out.writerIndex();
+                serializer.serialize(rpcMessage.getData(), new ByteBufOutputStream(out));
+                int bodyLength = out.writerIndex() - bodyIndex;
+                byte compressType = rpcMessage.getCompress();
+                if (compressType != CompressTypeEnum.NONE.getCode() && bodyLength >= COMPRESS_THRESHOLD
+                        && compressBody(channelHandlerContext, out, bodyIndex, bodyLength, compressType)) {
+                    out.setByte(compressIndex, compressType);
+                }
             }
             // 在这里补上消息长度：因为一开始消息体要序列化和压缩，确定不了长度。最后才能确定。
-            int writeIndex = out.writerIndex();
-            out.writerIndex(writeIndex - fullLength + RpcConstants.MAGIC_NUMBER.length + 1);
-            out.writeInt(fullLength);
-            out.writerIndex(writeIndex);
+            int fullLength = out.writerIndex() - headerIndex;
+            out.setInt(headerIndex + RpcConstants.MAGIC_NUMBER.length + 1, fullLength);
         } catch (Exception e) {
             log.error("Encode request error!", e);
         }
 
     }
+
+    /**
+     * 把 out 中已序列化的消息体压缩到一块池化的临时 ByteBuf，压缩后确实变小才替换原消息体
+     * @return 是否替换成了压缩后的消息体
+     */
+    private boolean compressBody(ChannelHandlerContext ctx, ByteBuf out, int bodyIndex, int bodyLength, byte compressType) throws IOException {
+        Compress compress = CodecRegistry.getCompress(compressType);
+        ByteBuf compressed = ctx.alloc().buffer(bodyLength);
+        try {
+            try (OutputStream compressOut = compress.compress(new ByteBufOutputStream(compressed))) {
+                out.getBytes(bodyIndex, compressOut, bodyLength);
+            }
+            if (compressed.readableBytes() >= bodyLength) {
+                return false;
+            }
+            out.writerIndex(bodyIndex);
+            out.writeBytes(compressed);
+            return true;
+        } finally {
+            compressed.release();
+        }
+    }
 }
@@ -5,9 +5,7 @@ import entity.RpcServiceProperties;
 import factory.SingletonFactory;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.timeout.IdleStateHandler;
@@ -16,6 +14,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import provider.ServiceProvider;
 import provider.ServiceProviderImpl;
+import remoting.transport.netty.NettyTransport;
 import remoting.transport.netty.client.codec.RpcMessageDecoder;
 import remoting.transport.netty.client.codec.RpcMessageEncoder;
 
@@ -43,17 +42,17 @@ public class NettyRpcServer {
     public void start() {
         CustomShutdownHook.getCustomShutdownHook().clearAll();
         String host = InetAddress.getLocalHost().getHostAddress();
-        EventLoopGroup bossGroup = new NioEventLoopGroup(1);
-        EventLoopGroup workerGroup = new NioEventLoopGroup();
+        // SO_REUSEPORT 下每个监听 channel 各用一个 boss 线程
+        int acceptors = NettyTransport.acceptors();
+        EventLoopGroup bossGroup = NettyTransport.newEventLoopGroup(acceptors);
+        EventLoopGroup workerGroup = NettyTransport.newEventLoopGroup(0);
         //
 
         //
         try {
             ServerBootstrap b = new ServerBootstrap();
             b.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
-                    // TCP默认开启了 Nagle 算法，该算法的作用是尽可能的发送大数据快，减少网络传输。TCP_NODELAY 参数的作用就是控制是否启用 Nagle 算法。
-                    .childOption(ChannelOption.TCP_NODELAY, true)
+                    .channel(NettyTransport.serverChannelClass())
                     // 是否开启 TCP 底层心跳机制
                     .childOption(ChannelOption.SO_KEEPALIVE, true)
                     //表示系统用于临时存放已完成三次握手的请求的队列的最大长度,如果连接建立频繁，服务器处理创建新连接较慢，可以适当调大这个参数
@@ -63,20 +62,27 @@ public class NettyRpcServer {
                     .childHandler(new ChannelInitializer<SocketChannel>() {
                         @Override
                         protected void initChannel(SocketChannel ch) {
-                            // 30 秒之内没有收到客户端请求的话就关闭连接
                             ChannelPipeline p = ch.pipeline();
+                            NettyTransport.addFlushHandlers(p);
+                            // 30 秒之内没有收到客户端请求的话就关闭连接
                             p.addLast(new IdleStateHandler(30, 0, 0, TimeUnit.SECONDS));
                             p.addLast(new RpcMessageEncoder());
                             p.addLast(new RpcMessageDecoder());
-                            //
-
-                            //
+                            p.addLast(new NettyRpcServerHandler());
                         }
                     });
-            // 绑定端口，同步等待绑定成功
-            ChannelFuture f = b.bind(host, PORT).sync();
+            NettyTransport.applyServerOptions(b);
+            // 绑定端口，同步等待绑定成功。acceptors 大于 1 时以 SO_REUSEPORT 多次绑定同一端口
+            ChannelFuture[] futures = new ChannelFuture[acceptors];
+            for (int i = 0; i < acceptors; i++) {
+                futures[i] = b.bind(host, PORT).sync();
+            }
+            log.info("server started on [{}:{}] with {} transport and {} acceptor(s)", host, PORT,
+                    NettyTransport.isEpoll() ? "epoll" : "nio", acceptors);
             // 等待服务端监听端口关闭
-            f.channel().closeFuture().sync();
+            for (ChannelFuture f : futures) {
+                f.channel().closeFuture().sync();
+            }
         } catch (InterruptedException e) {
             log.error("occur exception when start server:", e);
         } finally {
@@ -1,8 +1,6 @@
 package remoting.transport.netty.server;
 
-import enums.CompressTypeEnum;
 import enums.RpcResponseCodeEnum;
-import enums.SerializationTypeEnum;
 import factory.SingletonFactory;
 import handler.RpcRequestHandler;
 import io.netty.channel.ChannelFutureListener;
@@ -13,10 +11,16 @@ import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.util.ReferenceCountUtil;
 import lombok.extern.slf4j.Slf4j;
+import provider.ServiceMethod;
 import remoting.constants.RpcConstants;
 import remoting.dto.RpcMessage;
 import remoting.dto.RpcRequest;
 import remoting.dto.RpcResponse;
+import remoting.transport.netty.client.codec.CodecRegistry;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 定制服务器的ChannelHandler去处理客户端发来的数据
@@ -31,9 +35,11 @@ import remoting.dto.RpcResponse;
 public class NettyRpcServerHandler extends ChannelInboundHandlerAdapter {
 
     private final RpcRequestHandler rpcRequestHandler;
+    private final RequestDispatcher requestDispatcher;
 
     public NettyRpcServerHandler() {
         this.rpcRequestHandler = SingletonFactory.getInstance(RpcRequestHandler.class);
+        this.requestDispatcher = SingletonFactory.getInstance(RequestDispatcher.class);
     }
 
     @Override
@@ -44,30 +50,43 @@ public class NettyRpcServerHandler extends ChannelInboundHandlerAdapter {
                 // 构造返回的message消息
                 byte messageType = ((RpcMessage) msg).getMessageType();
                 RpcMessage rpcMessage = new RpcMessage();
-                rpcMessage.setCodec(SerializationTypeEnum.PROTOSTUFF.getCode());
-                rpcMessage.setCompress(CompressTypeEnum.GZIP.getCode());
+                // 按请求的协议版本响应，并回传 header 中的 requestId
+                rpcMessage.setVersion(((RpcMessage) msg).getVersion());
+                rpcMessage.setRequestId(((RpcMessage) msg).getRequestId());
+                // 按请求的序列化类型响应，客户端用哪种序列化都能解析
+                rpcMessage.setCodec(((RpcMessage) msg).getCodec());
+                rpcMessage.setCompress(CodecRegistry.getDefaultCompress());
                 // 如果请求中是心跳包，则也返回心跳包，pong
                 if (messageType == RpcConstants.HEARTBEAT_REQUEST_TYPE) {
                     rpcMessage.setMessageType(RpcConstants.HEARTBEAT_RESPONSE_TYPE);
                     rpcMessage.setData(RpcConstants.PONG);
                 } else {
                     RpcRequest rpcRequest = (RpcRequest) ((RpcMessage) msg).getData();
-                    // 执行目标方法并且获得目标方法的返回值：借助RpcRequestHandler来实现
-                    Object result = rpcRequestHandler.handle(rpcRequest);
-                    log.info(String.format("server get result: %s", result.toString()));
                     rpcMessage.setMessageType(RpcConstants.RESPONSE_TYPE);
-                    // 以上就构造完成了返回message消息
-
-                    if (ctx.channel().isActive() && ctx.channel().isWritable()) {
-                        // 构建统一返回：RpcResponse,并将其封装到message的data中
-                        RpcResponse<Object> rpcResponse = RpcResponse.success(result, rpcRequest.getRequestId());
-                        rpcMessage.setData(rpcResponse);
-                    } else {
-                        RpcResponse<Object> rpcResponse = RpcResponse.fail(RpcResponseCodeEnum.FAIL);
-                        rpcMessage.setData(rpcResponse);
-                        log.error("not writable now, message dropped");
+                    ServiceMethod serviceMethod = rpcRequestHandler.resolve(rpcRequest);
+                    if (serviceMethod == null) {
+                        // 紧凑形式的 methodId 未知(例如服务端重启后重新分配了 id)，通知客户端改用完整形式重发；
+                        // 完整形式找不到服务或方法时只让这个请求失败，连接上的其它请求不受影响
+                        RpcResponseCodeEnum code = rpcRequest.getMethodId() != 0
+                                ? RpcResponseCodeEnum.UNKNOWN_METHOD_ID : RpcResponseCodeEnum.SERVICE_CAN_NOT_BE_FOUND;
+                        if (code == RpcResponseCodeEnum.SERVICE_CAN_NOT_BE_FOUND) {
+                            log.warn("service method [{}#{}] can not be found", rpcRequest.getRpcServiceName(), rpcRequest.getMethodName());
+                        }
+                        rpcMessage.setData(RpcResponse.fail(code, rpcRequest.getRequestId()));
+                        ctx.writeAndFlush(rpcMessage).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+                        return;
+                    }
+                    // 按客户端剩余的超时时间算出本地的截止时间，排队等到截止时间之后的请求不再执行
+                    long deadline = rpcRequest.getTimeout() > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(rpcRequest.getTimeout()) : 0;
+                    try {
+                        // 在业务线程上执行目标方法并写回响应，不占用 IO 线程
+                        requestDispatcher.dispatch(serviceMethod, () -> invoke(ctx, serviceMethod, rpcRequest, rpcMessage, deadline),
+                                () -> writeBusy(ctx, rpcRequest, rpcMessage));
+                    } catch (RejectedExecutionException e) {
+                        // 线程池已满，立即拒绝，不让请求继续排队
+                        log.warn("server executor is saturated, reject request of [{}]", serviceMethod.getRpcServiceName());
+                        writeBusy(ctx, rpcRequest, rpcMessage);
                     }
-                    ctx.writeAndFlush(rpcMessage).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
                 }
             }
         } finally {
@@ -76,11 +95,91 @@ public class NettyRpcServerHandler extends ChannelInboundHandlerAdapter {
         }
     }
 
+    /**
+     * 执行目标方法并写回响应。目标方法返回 CompletionStage 时不等待，在它完成时再写回响应
+     * @param deadline System.nanoTime() 表示的截止时间，0 表示不限制
+     * @return 目标方法是异步的时返回写回响应之后才完成的 CompletionStage，否则返回 null
+     */
+    private CompletionStage<?> invoke(ChannelHandlerContext ctx, ServiceMethod serviceMethod, RpcRequest rpcRequest, RpcMessage rpcMessage, long deadline) {
+        if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            // 客户端已经超时放弃，执行了也没有人等结果
+            log.warn("request of [{}] expired before execution, skip it", serviceMethod.getRpcServiceName());
+            return null;
+        }
+        Object result;
+        try {
+            // 执行目标方法并且获得目标方法的返回值：借助RpcRequestHandler来实现
+            result = rpcRequestHandler.invoke(serviceMethod, rpcRequest);
+        } catch (Exception e) {
+            log.error("invoke [{}] fail", serviceMethod.getMethod(), e);
+            writeResponse(ctx, serviceMethod, rpcRequest, rpcMessage, RpcResponse.fail(RpcResponseCodeEnum.FAIL, rpcRequest.getRequestId()));
+            return null;
+        }
+        if (result instanceof CompletionStage) {
+            return ((CompletionStage<?>) result).whenComplete((value, throwable) -> {
+                if (throwable != null) {
+                    log.error("invoke [{}] fail", serviceMethod.getMethod(), throwable);
+                    writeResponse(ctx, serviceMethod, rpcRequest, rpcMessage, RpcResponse.fail(RpcResponseCodeEnum.FAIL, rpcRequest.getRequestId()));
+                } else {
+                    writeResponse(ctx, serviceMethod, rpcRequest, rpcMessage, RpcResponse.success(value, rpcRequest.getRequestId()));
+                }
+            });
+        }
+        log.info("server get result: [{}]", result);
+        writeResponse(ctx, serviceMethod, rpcRequest, rpcMessage, RpcResponse.success(result, rpcRequest.getRequestId()));
+        return null;
+    }
+
+    // 请求没有被执行，回复 SERVER_BUSY，客户端立即失败而不是等到超时
+    private void writeBusy(ChannelHandlerContext ctx, RpcRequest rpcRequest, RpcMessage rpcMessage) {
+        RpcResponse<Object> rpcResponse = RpcResponse.fail(RpcResponseCodeEnum.SERVER_BUSY, rpcRequest.getRequestId());
+        rpcResponse.setCapacity(0);
+        rpcMessage.setData(rpcResponse);
+        ctx.writeAndFlush(rpcMessage).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+    }
+
+    /**
+     * 构建统一返回：RpcResponse,并将其封装到message的data中。
+     * 连接不可写时响应照常进入写缓冲区，由 channelWritabilityChanged 暂停读取来施加背压
+     */
+    private void writeResponse(ChannelHandlerContext ctx, ServiceMethod serviceMethod, RpcRequest rpcRequest, RpcMessage rpcMessage, RpcResponse<Object> rpcResponse) {
+        // 完整形式的请求在响应中带回方法 id，客户端之后在该连接上只发送 id
+        if (rpcRequest.getMethodId() == 0) {
+            rpcResponse.setMethodId(serviceMethod.getId());
+        }
+        // 通告剩余容量，客户端据此收紧在途窗口，不再继续压垮服务端
+        int capacity = requestDispatcher.remainingCapacity(serviceMethod);
+        if (capacity >= 0) {
+            rpcResponse.setCapacity(capacity);
+        }
+        rpcMessage.setData(rpcResponse);
+        ctx.writeAndFlush(rpcMessage).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+    }
+
+    /**
+     * 写缓冲区超过高水位时停止读取客户端的请求，降到低水位以下时恢复读取，
+     * 对端发得再快，服务端待发送的响应也不会无限堆积
+     */
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        boolean writable = ctx.channel().isWritable();
+        ctx.channel().config().setAutoRead(writable);
+        if (!writable) {
+            log.warn("channel [{}] is not writable, stop reading until pending responses are flushed", ctx.channel());
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
         if (evt instanceof IdleStateEvent) {
             IdleState state = ((IdleStateEvent) evt).state();
             if (state == IdleState.READER_IDLE) {
+                // 背压暂停读取时读不到客户端的心跳，连接并没有空闲，不关闭
+                if (!ctx.channel().config().isAutoRead()) {
+                    log.info("idle check happen while reading is paused by backpressure, keep the connection");
+                    return;
+                }
                 log.info("idle check happen, so close the connection");
                 ctx.close();
             }
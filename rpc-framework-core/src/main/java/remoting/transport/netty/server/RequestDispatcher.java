@@ -0,0 +1,209 @@
+package remoting.transport.netty.server;
+
+import enums.RpcConfigEnum;
+import lombok.extern.slf4j.Slf4j;
+import provider.ServiceMethod;
+import utils.RpcConfigUtil;
+import utils.ThreadPoolFactoryUtils;
+
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 把服务方法的执行从 Netty 的 IO 线程转移到业务线程上，一个慢方法不会拖住共用同一个 EventLoop 的其他连接。
+ * 执行方式由 rpc.server.executor 配置：
+ * <ul>
+ *     <li>eventloop：直接在 IO 线程上执行，适合只做内存计算的极短方法</li>
+ *     <li>shared：所有服务共用一个有界线程池（默认）</li>
+ *     <li>isolated：每个服务一个独立的有界线程池，某个服务打满线程池不会影响其他服务（舱壁隔离）</li>
+ *     <li>virtual：JDK 21+ 上每个请求一个虚拟线程，不可用时退回 shared。适合执行阻塞的 JDBC、HTTP 调用，
+ *     每个服务由 {@link VirtualThreadLimiter} 限制同时执行的请求数，突发流量不会无限放大到下游数据库</li>
+ * </ul>
+ * 线程池队列满时 {@link #dispatch} 抛出 RejectedExecutionException，由调用方立即返回 SERVER_BUSY
+ * @author Chen
+ * @create 2026-10-17 16:10
+ */
+@Slf4j
+public class RequestDispatcher {
+
+    private static final String EVENT_LOOP = "eventloop";
+    private static final String SHARED = "shared";
+    private static final String ISOLATED = "isolated";
+    private static final String VIRTUAL = "virtual";
+    private static final String THREAD_NAME_PREFIX = "rpc-server-handler";
+
+    private final String mode;
+    private final int threads;
+    private final int queueCapacity;
+    // virtual 模式下使用的线程池
+    private final ExecutorService executor;
+    // shared 模式下使用的线程池
+    private final CountingExecutor sharedExecutor;
+    /**
+     * isolated 模式下每个服务的线程池
+     * key: rpc服务名
+     * value: 线程池
+     */
+    private final Map<String, CountingExecutor> serviceExecutors = new ConcurrentHashMap<>();
+    /**
+     * virtual 模式下每个服务的并发限制
+     * key: rpc服务名
+     * value: 并发限制
+     */
+    private final Map<String, VirtualThreadLimiter> serviceLimiters = new ConcurrentHashMap<>();
+    private final int virtualMaxConcurrency;
+
+    public RequestDispatcher() {
+        this(RpcConfigUtil.getString(RpcConfigEnum.SERVER_EXECUTOR, SHARED),
+                RpcConfigUtil.getInt(RpcConfigEnum.SERVER_EXECUTOR_THREADS, Runtime.getRuntime().availableProcessors() * 2),
+                RpcConfigUtil.getInt(RpcConfigEnum.SERVER_EXECUTOR_QUEUE, 1024),
+                RpcConfigUtil.getInt(RpcConfigEnum.SERVER_VIRTUAL_MAX_CONCURRENCY, 256));
+    }
+
+    /**
+     * 不读取 rpc.properties，直接指定执行方式，同一个进程中可以比较不同的执行方式
+     * @param mode                  执行方式，同 rpc.server.executor
+     * @param threads               线程池的线程数
+     * @param queueCapacity         线程池的等待队列长度，virtual 模式下为每个服务等待执行的请求数上限
+     * @param virtualMaxConcurrency virtual 模式下每个服务同时执行的请求数上限
+     */
+    RequestDispatcher(String mode, int threads, int queueCapacity, int virtualMaxConcurrency) {
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.virtualMaxConcurrency = virtualMaxConcurrency;
+        String configured = mode.toLowerCase();
+        if (VIRTUAL.equals(configured)) {
+            tracePinnedThreads(RpcConfigUtil.getString(RpcConfigEnum.SERVER_VIRTUAL_TRACE_PINNED, null));
+        }
+        ExecutorService virtualExecutor = VIRTUAL.equals(configured) ? newVirtualThreadExecutor() : null;
+        if (VIRTUAL.equals(configured) && virtualExecutor == null) {
+            configured = SHARED;
+        } else if (!EVENT_LOOP.equals(configured) && !SHARED.equals(configured)
+                && !ISOLATED.equals(configured) && !VIRTUAL.equals(configured)) {
+            log.warn("unknown server executor [{}], fall back to shared", configured);
+            configured = SHARED;
+        }
+        this.mode = configured;
+        this.executor = virtualExecutor == null ? null
+                : ThreadPoolFactoryUtils.registerThreadPoolIfAbsent(THREAD_NAME_PREFIX + "-virtual", virtualExecutor);
+        this.sharedExecutor = SHARED.equals(mode) ? newCountingExecutor(THREAD_NAME_PREFIX) : null;
+        log.info("server executor mode [{}]", mode);
+    }
+
+    /**
+     * 执行服务方法对应的任务
+     * @param serviceMethod 要调用的服务方法，isolated 模式下据此选择线程池
+     * @param task          调用服务方法并写回响应的任务，返回异步结果完成时才完成的 CompletionStage，同步执行完毕时返回 null
+     * @param onAbort       任务已经被接收但不会再执行时调用（virtual 模式下等待执行时被中断），由调用方给客户端回复
+     * @throws RejectedExecutionException 线程池已满
+     */
+    public void dispatch(ServiceMethod serviceMethod, Supplier<? extends CompletionStage<?>> task, Runnable onAbort) {
+        if (EVENT_LOOP.equals(mode)) {
+            task.get();
+        } else if (ISOLATED.equals(mode)) {
+            serviceExecutors.computeIfAbsent(serviceMethod.getRpcServiceName(), rpcServiceName ->
+                    newCountingExecutor(THREAD_NAME_PREFIX + "-" + rpcServiceName))
+                    .execute(task);
+        } else if (VIRTUAL.equals(mode)) {
+            VirtualThreadLimiter limiter = serviceLimiters.computeIfAbsent(serviceMethod.getRpcServiceName(), rpcServiceName -> {
+                VirtualThreadLimiter.warnSynchronizedMethods(rpcServiceName, serviceMethod.getService().getClass());
+                return new VirtualThreadLimiter(virtualMaxConcurrency, queueCapacity);
+            });
+            limiter.execute(executor, task, onAbort);
+        } else {
+            sharedExecutor.execute(task);
+        }
+    }
+
+    /**
+     * 每个服务同时能接收的请求数：线程数（virtual 模式下为并发上限）+ 等待队列长度，作为元数据发布到注册中心
+     * @return eventloop 模式下不排队，返回 0 表示未知
+     */
+    public int getCapacity() {
+        if (EVENT_LOOP.equals(mode)) {
+            return 0;
+        }
+        return (VIRTUAL.equals(mode) ? virtualMaxConcurrency : threads) + queueCapacity;
+    }
+
+    /**
+     * 服务还能接收的请求数：空闲线程数 + 等待队列的剩余长度，在响应中通告给客户端。
+     * 每个响应都要调用，所以只读一个计数器，不调用会加锁并遍历所有线程的 ThreadPoolExecutor.getActiveCount()
+     * @return eventloop 模式下不排队，返回 -1 表示不通告
+     */
+    public int remainingCapacity(ServiceMethod serviceMethod) {
+        if (EVENT_LOOP.equals(mode)) {
+            return -1;
+        }
+        if (VIRTUAL.equals(mode)) {
+            VirtualThreadLimiter limiter = serviceLimiters.get(serviceMethod.getRpcServiceName());
+            return limiter == null ? virtualMaxConcurrency + queueCapacity : limiter.availableCapacity();
+        }
+        CountingExecutor countingExecutor = ISOLATED.equals(mode) ? serviceExecutors.get(serviceMethod.getRpcServiceName()) : sharedExecutor;
+        if (countingExecutor == null) {
+            return threads + queueCapacity;
+        }
+        return Math.max(0, threads + queueCapacity - countingExecutor.accepted.get());
+    }
+
+    private CountingExecutor newCountingExecutor(String threadNamePrefix) {
+        return new CountingExecutor(ThreadPoolFactoryUtils.createCustomThreadPoolIfAbsent(threadNamePrefix, threads, threads, queueCapacity));
+    }
+
+    /**
+     * 记录已提交、还没有执行完的任务数（执行中 + 排队中）的线程池。
+     * 任务返回 CompletionStage 时（异步服务）等它完成才减少计数，异步服务还没有完成的请求同样占用通告的容量
+     */
+    private static final class CountingExecutor {
+        private final ExecutorService executor;
+        private final AtomicInteger accepted = new AtomicInteger();
+
+        private CountingExecutor(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        private void execute(Supplier<? extends CompletionStage<?>> task) {
+            accepted.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    CompletionStage<?> pending = null;
+                    try {
+                        pending = task.get();
+                    } finally {
+                        if (pending == null) {
+                            accepted.decrementAndGet();
+                        } else {
+                            pending.whenComplete((result, throwable) -> accepted.decrementAndGet());
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                accepted.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    // jdk.tracePinnedThreads 在第一个虚拟线程创建时读取，所以要在创建虚拟线程执行器之前设置；命令行已经指定时不覆盖
+    private static void tracePinnedThreads(String value) {
+        if (value != null && System.getProperty("jdk.tracePinnedThreads") == null) {
+            System.setProperty("jdk.tracePinnedThreads", value);
+        }
+    }
+
+    // 通过反射调用 JDK 21 的 Executors.newVirtualThreadPerTaskExecutor()，低版本 JDK 上返回 null
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("virtual threads are not available on this JDK, fall back to shared");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package remoting.transport.netty.server;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * virtual 模式下一个服务的并发限制。
+ * 虚拟线程几乎不占资源，但每个请求一个虚拟线程时，突发流量会原样变成对数据库等下游的并发访问，所以用两个信号量限制：
+ * admission 限制已接收的请求总数（执行中 + 等待中），在 IO 线程上非阻塞获取，获取不到立即拒绝；
+ * running 限制同时执行的请求数，在虚拟线程中阻塞获取，等待的虚拟线程只占很少的内存
+ * @author Chen
+ * @create 2026-10-17 16:40
+ */
+@Slf4j
+public class VirtualThreadLimiter {
+
+    private final Semaphore admission;
+    private final Semaphore running;
+
+    /**
+     * @param maxConcurrency 同时执行的请求数上限
+     * @param queueCapacity  等待执行的请求数上限
+     */
+    public VirtualThreadLimiter(int maxConcurrency, int queueCapacity) {
+        this.admission = new Semaphore(maxConcurrency + queueCapacity);
+        this.running = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * @param task          执行请求的任务，目标方法是异步的时返回它完成时才完成的 CompletionStage，同步执行完毕时返回 null。
+     *                      返回的 CompletionStage 完成之前一直占用执行和接收的名额，异步的服务同样受并发限制
+     * @param onInterrupted 请求已经被接收，但等待执行时线程被中断、不会再执行时调用，由调用方给客户端回复
+     * @throws RejectedExecutionException 执行中和等待中的请求都已经达到上限
+     */
+    public void execute(Executor executor, Supplier<? extends CompletionStage<?>> task, Runnable onInterrupted) {
+        if (!admission.tryAcquire()) {
+            throw new RejectedExecutionException("too many requests");
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    running.acquire();
+                } catch (InterruptedException e) {
+                    admission.release();
+                    Thread.currentThread().interrupt();
+                    onInterrupted.run();
+                    return;
+                }
+                CompletionStage<?> pending = null;
+                try {
+                    pending = task.get();
+                } finally {
+                    if (pending == null) {
+                        release();
+                    } else {
+                        pending.whenComplete((value, throwable) -> release());
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            admission.release();
+            throw e;
+        }
+    }
+
+    private void release() {
+        running.release();
+        admission.release();
+    }
+
+    /**
+     * @return 还能接收的请求数
+     */
+    public int availableCapacity() {
+        return admission.availablePermits();
+    }
+
+    /**
+     * synchronized 方法中的阻塞调用会把虚拟线程固定在载体线程上（JDK 24 之前），
+     * 大量请求同时阻塞时会耗尽载体线程，所以在服务第一次被调用时检查并给出警告
+     */
+    static void warnSynchronizedMethods(String rpcServiceName, Class<?> serviceClass) {
+        for (Method method : serviceClass.getMethods()) {
+            if (Modifier.isSynchronized(method.getModifiers()) && method.getDeclaringClass() != Object.class) {
+                log.warn("service [{}] method [{}] is synchronized, blocking calls inside it will pin virtual threads to carrier threads",
+                        rpcServiceName, method);
+            }
+        }
+    }
+}
@@ -2,6 +2,11 @@ package serialize;
 
 import extension.SPI;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 /**
  * 序列化接口，所有序列化类都要实现这个接口
  * @author cyx
@@ -27,4 +32,31 @@ public interface Serializer {
      */
     <T> T deserialize(byte[] bytes, Class<T> clazz);
 
+    /**
+     * 流式序列化：直接写入输出流（例如包装了 ByteBuf 的 ByteBufOutputStream），避免中间 byte[]。
+     * 默认实现退化为 byte[] 方式，实现类可按需覆盖。
+     * @param obj 要序列化的对象
+     * @param out 输出流
+     */
+    default void serialize(Object obj, OutputStream out) throws IOException {
+        out.write(serialize(obj));
+    }
+
+    /**
+     * 流式反序列化：直接从输入流（例如包装了 ByteBuf 的 ByteBufInputStream）读取。
+     * 默认实现读出全部字节后退化为 byte[] 方式，实现类可按需覆盖。
+     * @param in    输入流，读到末尾即为完整的消息体
+     * @param clazz 目标类
+     * @return 反序列化的对象
+     */
+    default <T> T deserialize(InputStream in, Class<T> clazz) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024 * 4];
+        int n;
+        while ((n = in.read(buffer)) > -1) {
+            bytes.write(buffer, 0, n);
+        }
+        return deserialize(bytes.toByteArray(), clazz);
+    }
+
 }
@@ -0,0 +1,100 @@
+package serialize.kryo;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.pool.KryoPool;
+import exception.SerializeException;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+import remoting.dto.RpcRequest;
+import remoting.dto.RpcResponse;
+import serialize.Serializer;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Kryo序列化。Kryo 实例不是线程安全的，所以放在池中借还使用；
+ * 每个线程复用同一个 Output/Input 缓冲区，序列化时不再为每条消息分配新的缓冲区。
+ * @author Chen
+ * @create 2026-10-17 13:10
+ */
+public class KryoSerializer implements Serializer {
+
+    private static final int BUFFER_SIZE = 1024 * 4;
+
+    private static final KryoPool KRYO_POOL = new KryoPool.Builder(KryoSerializer::createKryo).softReferences().build();
+    private static final ThreadLocal<Output> OUTPUT = ThreadLocal.withInitial(() -> new Output(BUFFER_SIZE, -1));
+    private static final ThreadLocal<Input> INPUT = ThreadLocal.withInitial(() -> new Input(BUFFER_SIZE));
+
+    // 通信双方按相同顺序预先注册，传输时只写类的 id 而不是完整类名
+    private static Kryo createKryo() {
+        Kryo kryo = new Kryo();
+        kryo.register(RpcRequest.class);
+        kryo.register(RpcResponse.class);
+        kryo.register(Object[].class);
+        kryo.register(Class[].class);
+        // 参数类没有无参构造器时也能反序列化
+        kryo.setInstantiatorStrategy(new Kryo.DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+        return kryo;
+    }
+
+    @Override
+    public byte[] serialize(Object obj) {
+        Kryo kryo = KRYO_POOL.borrow();
+        Output output = OUTPUT.get();
+        try {
+            output.setOutputStream(null);
+            kryo.writeObject(output, obj);
+            return output.toBytes();
+        } catch (Exception e) {
+            throw new SerializeException("Serialization failed", e);
+        } finally {
+            KRYO_POOL.release(kryo);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, Class<T> clazz) {
+        Kryo kryo = KRYO_POOL.borrow();
+        // 直接包装传入的 byte[]，不拷贝
+        try (Input input = new Input(bytes)) {
+            return kryo.readObject(input, clazz);
+        } catch (Exception e) {
+            throw new SerializeException("Deserialization failed", e);
+        } finally {
+            KRYO_POOL.release(kryo);
+        }
+    }
+
+    @Override
+    public void serialize(Object obj, OutputStream out) {
+        Kryo kryo = KRYO_POOL.borrow();
+        Output output = OUTPUT.get();
+        try {
+            output.setOutputStream(out);
+            kryo.writeObject(output, obj);
+            output.flush();
+        } catch (Exception e) {
+            throw new SerializeException("Serialization failed", e);
+        } finally {
+            output.setOutputStream(null);
+            KRYO_POOL.release(kryo);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(InputStream in, Class<T> clazz) {
+        Kryo kryo = KRYO_POOL.borrow();
+        Input input = INPUT.get();
+        try {
+            input.setInputStream(in);
+            return kryo.readObject(input, clazz);
+        } catch (Exception e) {
+            throw new SerializeException("Deserialization failed", e);
+        } finally {
+            input.setInputStream(null);
+            KRYO_POOL.release(kryo);
+        }
+    }
+}
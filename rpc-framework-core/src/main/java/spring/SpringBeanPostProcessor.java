@@ -3,18 +3,24 @@ package spring;
 import annotation.RpcReference;
 import annotation.RpcService;
 import entity.RpcServiceProperties;
+import enums.RpcConfigEnum;
 import extension.ExtensionLoader;
 import factory.SingletonFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.stereotype.Component;
 import provider.ServiceProvider;
 import provider.ServiceProviderImpl;
 import proxy.RpcClientProxy;
 import remoting.transport.RpcRequestTransport;
+import utils.RpcConfigUtil;
 
 import java.lang.reflect.Field;
+import java.util.concurrent.Executor;
 
 /**
  * @author cyx
@@ -22,10 +28,12 @@ import java.lang.reflect.Field;
  */
 @Slf4j
 @Component
-public class SpringBeanPostProcessor implements BeanPostProcessor {
+public class SpringBeanPostProcessor implements BeanPostProcessor, BeanFactoryAware {
 
     private final ServiceProvider serviceProvider;
     private final RpcRequestTransport rpcClient;
+    // 按名字查找 @RpcReference#callbackExecutor 指定的线程池
+    private BeanFactory beanFactory;
 
     public SpringBeanPostProcessor() {
         this.serviceProvider = SingletonFactory.getInstance(ServiceProviderImpl.class);
@@ -33,6 +41,11 @@ public class SpringBeanPostProcessor implements BeanPostProcessor {
     }
 
 
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
     /**
          * 服务端通过注解自动发布注册服务（标在接口上）
          * eg:
@@ -77,8 +90,18 @@ public class SpringBeanPostProcessor implements BeanPostProcessor {
                 // 根据接口名、注解值 生成接口的代理
                 RpcServiceProperties rpcServiceProperties = RpcServiceProperties.builder()
                         .group(rpcReference.group()).version(rpcReference.version()).build();
-                RpcClientProxy rpcClientProxy = new RpcClientProxy(rpcClient, rpcServiceProperties);
-                Object clientProxy = rpcClientProxy.getProxy(declaredField.getType());
+                RpcClientProxy rpcClientProxy = new RpcClientProxy(rpcClient, rpcServiceProperties,
+                        callbackExecutor(rpcReference.callbackExecutor(), beanFactory, declaredField));
+                if (rpcReference.timeout() >= 0) {
+                    rpcClientProxy.setTimeout(rpcReference.timeout());
+                }
+                for (String methodTimeout : rpcReference.methodTimeouts()) {
+                    setMethodTimeout(rpcClientProxy, methodTimeout, declaredField);
+                }
+                if (!rpcReference.loadBalance().isEmpty()) {
+                    rpcClientProxy.setLoadBalance(rpcReference.loadBalance());
+                }
+                Object clientProxy = rpcClientProxy.getProxy(declaredField.getType(), rpcReference.proxy());
                 // 给bean增加一个额外的 代理 属性
                 try {
                     declaredField.set(bean, clientProxy);
@@ -89,4 +112,49 @@ public class SpringBeanPostProcessor implements BeanPostProcessor {
         }
         return bean;
     }
+
+    /**
+     * 解析 {@link RpcReference#callbackExecutor()}
+     * @return 执行异步调用回调的线程池，为 null 时在 IO 线程上执行
+     * @throws IllegalArgumentException 指定的 bean 不存在或不是 Executor，指出是哪个属性
+     */
+    static Executor callbackExecutor(String name, BeanFactory beanFactory, Field field) {
+        if (name.isEmpty()) {
+            return RpcClientProxy.callbackExecutor(RpcConfigUtil.getString(RpcConfigEnum.CLIENT_CALLBACK_EXECUTOR, RpcClientProxy.CALLBACK_SHARED));
+        }
+        if (RpcClientProxy.CALLBACK_SHARED.equalsIgnoreCase(name) || RpcClientProxy.CALLBACK_DIRECT.equalsIgnoreCase(name)) {
+            return RpcClientProxy.callbackExecutor(name);
+        }
+        try {
+            if (beanFactory == null) {
+                throw new NoSuchBeanDefinitionException(name);
+            }
+            return beanFactory.getBean(name, Executor.class);
+        } catch (BeansException e) {
+            throw new IllegalArgumentException("invalid callbackExecutor [" + name + "] of @RpcReference on field ["
+                    + field.getDeclaringClass().getName() + "." + field.getName() + "], expected shared, direct or the name of an Executor bean", e);
+        }
+    }
+
+    /**
+     * 解析 {@link RpcReference#methodTimeouts()} 中的一项：方法名=超时时间（毫秒）
+     * @throws IllegalArgumentException 格式不对，指出是哪个属性上的哪一项
+     */
+    static void setMethodTimeout(RpcClientProxy rpcClientProxy, String methodTimeout, Field field) {
+        int index = methodTimeout.indexOf('=');
+        String methodName = index > 0 ? methodTimeout.substring(0, index).trim() : "";
+        long timeout = -1;
+        if (index > 0) {
+            try {
+                timeout = Long.parseLong(methodTimeout.substring(index + 1).trim());
+            } catch (NumberFormatException ignored) {
+                // 下面统一报错
+            }
+        }
+        if (methodName.isEmpty() || timeout < 0) {
+            throw new IllegalArgumentException("invalid methodTimeouts entry [" + methodTimeout + "] of @RpcReference on field ["
+                    + field.getDeclaringClass().getName() + "." + field.getName() + "], expected methodName=timeoutMillis");
+        }
+        rpcClientProxy.setMethodTimeout(methodName, timeout);
+    }
 }
@@ -0,0 +1,75 @@
+package compress.lz4;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Chen
+ * @create 2026-10-18 10:20
+ */
+class Lz4CompressTest {
+
+    private final Lz4Compress lz4 = new Lz4Compress();
+
+    @Test
+    void bytesAndStreamsShareTheFormat() throws IOException {
+        for (int size : new int[]{0, 1, 1000, 100_000, 2 * 1024 * 1024}) {
+            byte[] original = body(size);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (OutputStream out = lz4.compress(compressed)) {
+                out.write(original);
+            }
+            assertArrayEquals(compressed.toByteArray(), lz4.compress(original));
+            assertArrayEquals(original, lz4.decompress(compressed.toByteArray()));
+            assertArrayEquals(original, read(lz4.decompress(new ByteArrayInputStream(compressed.toByteArray()))));
+        }
+    }
+
+    @Test
+    void compressesRepetitiveBodies() {
+        byte[] original = body(10_000);
+        assertTrue(lz4.compress(original).length < original.length / 4);
+    }
+
+    @Test
+    void rejectsCorruptData() {
+        byte[] compressed = lz4.compress(body(1000));
+        // 截断
+        assertThrows(RuntimeException.class, () -> lz4.decompress(Arrays.copyOf(compressed, 2)));
+        assertThrows(RuntimeException.class, () -> lz4.decompress(Arrays.copyOf(compressed, compressed.length - 1)));
+        // 原始长度超过 LZ4 可能的压缩率
+        byte[] bomb = compressed.clone();
+        bomb[0] = 0x10;
+        assertThrows(RuntimeException.class, () -> lz4.decompress(bomb));
+    }
+
+    private static byte[] body(int size) {
+        byte[] pattern = "{\"interfaceName\":\"HelloService\",\"methodName\":\"hello\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] body = new byte[size];
+        for (int i = 0; i < size; i++) {
+            body[i] = (byte) (pattern[i % pattern.length] + i / 997);
+        }
+        return body;
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) > -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,78 @@
+package loadbalance;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Chen
+ * @create 2026-10-18 00:05
+ */
+class EndpointStatsTest {
+
+    private static final AtomicInteger PORT = new AtomicInteger(30000);
+
+    @Test
+    void newEndpointStillCountsActiveRequests() {
+        EndpointStats stats = EndpointStats.of(nextAddress());
+        double idle = stats.getCost();
+        assertTrue(idle > 0);
+        stats.begin();
+        stats.begin();
+        assertEquals(3, stats.getCost() / idle, 0.01);
+    }
+
+    @Test
+    void slowEndpointRecoversWithoutTraffic() {
+        EndpointStats slow = EndpointStats.of(nextAddress());
+        EndpointStats fast = EndpointStats.of(nextAddress());
+        slow.begin();
+        slow.end(TimeUnit.MILLISECONDS.toNanos(10), false);
+        fast.begin();
+        fast.end(TimeUnit.MILLISECONDS.toNanos(1), true);
+        long now = System.nanoTime();
+        assertTrue(slow.getCost(now) > fast.getCost(now));
+
+        // 慢的地址不再有请求，它的负载随时间降回初始值；快的地址有一个在途请求时负载已经更高
+        fast.begin();
+        long later = now + TimeUnit.SECONDS.toNanos(120);
+        assertTrue(slow.getCost(later) < fast.getCost(later), slow.getCost(later) + " >= " + fast.getCost(later));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), slow.getEwmaNanos(later), TimeUnit.MICROSECONDS.toNanos(10));
+    }
+
+    @Test
+    void consecutiveFailuresMakeEndpointUnhealthy() {
+        EndpointStats stats = EndpointStats.of(nextAddress());
+        stats.recordResult(false);
+        stats.recordResult(false);
+        assertTrue(stats.isHealthy());
+        stats.recordResult(false);
+        assertTrue(!stats.isHealthy());
+        stats.recordResult(true);
+        assertTrue(stats.isHealthy());
+    }
+
+    @Test
+    void unhealthyEndpointIsProbedAfterCooldown() {
+        EndpointStats stats = EndpointStats.of(nextAddress());
+        for (int i = 0; i < 3; i++) {
+            stats.recordResult(false);
+        }
+        long now = System.nanoTime();
+        assertTrue(!stats.isHealthy(now + TimeUnit.SECONDS.toNanos(1)));
+        assertTrue(stats.isHealthy(now + TimeUnit.SECONDS.toNanos(6)));
+        // 试探的请求又失败了，再等一个冷却周期
+        stats.recordResult(false);
+        long failedAgain = System.nanoTime();
+        assertTrue(!stats.isHealthy(failedAgain + TimeUnit.SECONDS.toNanos(1)));
+        assertTrue(stats.isHealthy(failedAgain + TimeUnit.SECONDS.toNanos(6)));
+    }
+
+    private static String nextAddress() {
+        return "127.0.0.1:" + PORT.incrementAndGet();
+    }
+}
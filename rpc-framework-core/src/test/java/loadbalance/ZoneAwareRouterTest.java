@@ -0,0 +1,119 @@
+package loadbalance;
+
+import extension.ExtensionLoader;
+import org.junit.jupiter.api.Test;
+import registry.ServiceInstance;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author Chen
+ * @create 2026-10-18 00:40
+ */
+class ZoneAwareRouterTest {
+
+    // EndpointStats 按地址全局统计，每个用例使用不同的地址
+    private static final AtomicInteger PORT = new AtomicInteger(40000);
+
+    @Test
+    void prefersTheLocalZone() {
+        ServiceInstance localA = instance("a");
+        ServiceInstance remote = instance("b");
+        ServiceInstance localB = instance("a");
+        List<ServiceInstance> instances = Arrays.asList(localA, remote, localB);
+        assertEquals(Arrays.asList(localA, localB), new ZoneAwareRouter("a", 0.5).route(instances));
+    }
+
+    @Test
+    void spillsWhenLocalCapacityIsBelowThreshold() {
+        ServiceInstance localA = instance("a");
+        ServiceInstance localB = instance("a");
+        ServiceInstance localC = instance("a");
+        List<ServiceInstance> instances = Arrays.asList(localA, localB, localC, instance("b"));
+        ZoneAwareRouter router = new ZoneAwareRouter("a", 0.5);
+        markUnhealthy(localA);
+        // 还有 2/3 的本地容量
+        assertEquals(Arrays.asList(localB, localC), router.route(instances));
+        markUnhealthy(localB);
+        // 只剩 1/3，退回所有可用区
+        assertSame(instances, router.route(instances));
+    }
+
+    @Test
+    void spillsWhenAllLocalInstancesAreUnhealthy() {
+        ServiceInstance local = instance("a");
+        List<ServiceInstance> instances = Arrays.asList(local, instance("b"));
+        markUnhealthy(local);
+        assertSame(instances, new ZoneAwareRouter("a", 0).route(instances));
+    }
+
+    @Test
+    void zeroWeightLocalInstancesAreNotCapacity() {
+        ServiceInstance drained = instance("a", 0);
+        ServiceInstance localA = instance("a", 100);
+        ServiceInstance localB = instance("a", 100);
+        List<ServiceInstance> instances = Arrays.asList(drained, localA, localB, instance("b", 100));
+        ZoneAwareRouter router = new ZoneAwareRouter("a", 0.5);
+        // 摘流量的实例不放入结果，也不算容量：剩下的两个实例都健康，容量是 100%
+        assertEquals(Arrays.asList(localA, localB), router.route(instances));
+        markUnhealthy(localA);
+        assertEquals(Arrays.asList(localB), router.route(instances));
+
+        // 本可用区只剩摘流量的实例时退回所有可用区，负载均衡不会因为只有权重为 0 的实例而选不出地址
+        List<ServiceInstance> onlyDrained = Arrays.asList(drained, instance("b", 100));
+        assertSame(onlyDrained, router.route(onlyDrained));
+        LoadBalance random = ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtension("random");
+        assertSame(onlyDrained.get(1), random.selectServiceAddress(router.route(onlyDrained), null));
+    }
+
+    @Test
+    void noZoneKeepsAllInstances() {
+        List<ServiceInstance> instances = Arrays.asList(instance("a"), instance("b"), instance(null));
+        assertSame(instances, new ZoneAwareRouter(null, 0.5).route(instances));
+        assertSame(instances, new ZoneAwareRouter("", 0.5).route(instances));
+        // 客户端有可用区而服务实例都没有
+        List<ServiceInstance> unzoned = Arrays.asList(instance(null), instance(null));
+        assertSame(unzoned, new ZoneAwareRouter("a", 0.5).route(unzoned));
+    }
+
+    @Test
+    void reusesTheFilteredListUntilHealthChanges() {
+        ServiceInstance localA = instance("a");
+        ServiceInstance localB = instance("a");
+        List<ServiceInstance> instances = Arrays.asList(localA, localB, instance("b"));
+        ZoneAwareRouter router = new ZoneAwareRouter("a", 0.5);
+        List<ServiceInstance> first = router.route(instances);
+        assertSame(first, router.route(instances));
+        // 新的实例列表重新过滤
+        List<ServiceInstance> copy = Arrays.asList(localA, localB, instances.get(2));
+        assertNotSame(first, router.route(copy));
+
+        markUnhealthy(localB);
+        List<ServiceInstance> second = router.route(instances);
+        assertEquals(Arrays.asList(localA), second);
+        assertSame(second, router.route(instances));
+        EndpointStats.of(localB.getAddress()).recordResult(true);
+        assertEquals(Arrays.asList(localA, localB), router.route(instances));
+    }
+
+    private static ServiceInstance instance(String zone) {
+        return instance(zone, 100);
+    }
+
+    private static ServiceInstance instance(String zone, int weight) {
+        return ServiceInstance.builder().address("127.0.0.1:" + PORT.incrementAndGet()).weight(weight).zone(zone).build();
+    }
+
+    private static void markUnhealthy(ServiceInstance serviceInstance) {
+        EndpointStats stats = EndpointStats.of(serviceInstance.getAddress());
+        for (int i = 0; i < 3; i++) {
+            stats.recordResult(false);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package loadbalance.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import registry.ServiceInstance;
+import remoting.dto.RpcRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 一致性哈希环的倾斜程度和节点下线时的迁移量，选择开销见 rpc-framework-benchmark 中的 ConsistentHashLoadBalanceBenchmark
+ * @author Chen
+ * @create 2026-10-17 23:55
+ */
+class ConsistentHashLoadBalanceTest {
+
+    private static final int KEYS = 100_000;
+    private static final int REPLICAS = 160;
+
+    @Test
+    void keysAreSpreadEvenly() {
+        for (int nodes : new int[]{4, 10}) {
+            List<ServiceInstance> instances = instances(nodes);
+            ConsistentHashLoadBalance.ConsistentHashSelector selector = new ConsistentHashLoadBalance.ConsistentHashSelector(instances, REPLICAS);
+            Map<ServiceInstance, Integer> counts = new HashMap<>();
+            for (int i = 0; i < KEYS; i++) {
+                counts.merge(selector.select("key-" + i), 1, Integer::sum);
+            }
+            assertEquals(nodes, counts.size());
+            double fair = (double) KEYS / nodes;
+            for (Map.Entry<ServiceInstance, Integer> entry : counts.entrySet()) {
+                double skew = entry.getValue() / fair;
+                // 160 个虚节点时每个节点分到的比例偏离平均值不超过 20%
+                assertTrue(skew > 0.8 && skew < 1.2, nodes + " nodes, " + entry.getKey().getAddress() + " skew " + skew);
+            }
+        }
+    }
+
+    @Test
+    void removingANodeOnlyMovesItsOwnKeys() {
+        List<ServiceInstance> instances = instances(5);
+        ConsistentHashLoadBalance.ConsistentHashSelector before = new ConsistentHashLoadBalance.ConsistentHashSelector(instances, REPLICAS);
+        ServiceInstance removed = instances.get(2);
+        List<ServiceInstance> remaining = new ArrayList<>(instances);
+        remaining.remove(removed);
+        ConsistentHashLoadBalance.ConsistentHashSelector after = new ConsistentHashLoadBalance.ConsistentHashSelector(remaining, REPLICAS);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "key-" + i;
+            ServiceInstance owner = before.select(key);
+            if (owner == removed) {
+                moved++;
+                assertNotSame(removed, after.select(key));
+            } else {
+                assertSame(owner, after.select(key));
+            }
+        }
+        assertEquals(KEYS / 5, moved, KEYS / 5 * 0.2);
+    }
+
+    @Test
+    void arrayArgumentsHashByContent() {
+        RpcRequest first = RpcRequest.builder().parameters(new Object[]{new long[]{1, 2, 3}}).build();
+        RpcRequest second = RpcRequest.builder().parameters(new Object[]{new long[]{1, 2, 3}}).build();
+        assertEquals(ConsistentHashLoadBalance.hashKey(first), ConsistentHashLoadBalance.hashKey(second));
+    }
+
+    @Test
+    void invalidArgumentIndexesFallBackToTheFirstArgument() {
+        assertArrayEquals(new int[]{0, 2}, ConsistentHashLoadBalance.parseArgumentIndexes("0, 2"));
+        assertArrayEquals(new int[]{0}, ConsistentHashLoadBalance.parseArgumentIndexes("-1"));
+        assertArrayEquals(new int[]{0}, ConsistentHashLoadBalance.parseArgumentIndexes("0,a"));
+    }
+
+    private static List<ServiceInstance> instances(int n) {
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            instances.add(ServiceInstance.builder().address("192.168.0." + (i + 1) + ":9998").build());
+        }
+        return instances;
+    }
+}
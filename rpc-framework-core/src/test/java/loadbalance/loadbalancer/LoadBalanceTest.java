@@ -0,0 +1,189 @@
+package loadbalance.loadbalancer;
+
+import extension.ExtensionLoader;
+import loadbalance.EndpointStats;
+import loadbalance.LoadBalance;
+import org.junit.jupiter.api.Test;
+import registry.ServiceInstance;
+import remoting.dto.RpcRequest;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 通过 SPI 取得各个负载均衡策略，检查它们的选择结果
+ * @author Chen
+ * @create 2026-10-17 23:30
+ */
+class LoadBalanceTest {
+
+    // EndpointStats 按地址全局统计，每个用例使用不同的地址
+    private static final AtomicInteger PORT = new AtomicInteger(20000);
+
+    @Test
+    void emptyAndSingletonLists() {
+        for (String name : new String[]{"random", "roundrobin", "consistenthash", "leastactive", "peakewma", "p2c"}) {
+            LoadBalance loadBalance = loadBalance(name);
+            assertNull(loadBalance.selectServiceAddress(null, request("a")), name);
+            ServiceInstance only = instance(100);
+            assertSame(only, loadBalance.selectServiceAddress(Arrays.asList(only), request("a")), name);
+        }
+    }
+
+    @Test
+    void randomFollowsWeights() {
+        List<ServiceInstance> instances = Arrays.asList(instance(500), instance(100), instance(100));
+        Map<ServiceInstance, Integer> counts = count(loadBalance("random"), instances, 70000);
+        assertEquals(50000, counts.get(instances.get(0)), 1500);
+        assertEquals(10000, counts.get(instances.get(1)), 1000);
+        assertEquals(10000, counts.get(instances.get(2)), 1000);
+    }
+
+    @Test
+    void roundRobinIsSmooth() {
+        List<ServiceInstance> instances = Arrays.asList(instance(5), instance(1), instance(1));
+        LoadBalance loadBalance = loadBalance("roundrobin");
+        RpcRequest rpcRequest = request("roundRobinIsSmooth");
+        StringBuilder order = new StringBuilder();
+        for (int i = 0; i < 7; i++) {
+            order.append(instances.indexOf(loadBalance.selectServiceAddress(instances, rpcRequest)));
+        }
+        assertEquals("0010200", order.toString());
+    }
+
+    @Test
+    void weightedPoliciesSkipZeroWeightInstances() {
+        for (String name : new String[]{"random", "roundrobin"}) {
+            LoadBalance loadBalance = loadBalance(name);
+            List<ServiceInstance> instances = Arrays.asList(instance(0), instance(100), instance(0));
+            for (int i = 0; i < 100; i++) {
+                assertSame(instances.get(1), loadBalance.selectServiceAddress(instances, request(i)), name);
+            }
+            // 权重都相同但都为 0
+            assertNull(loadBalance.selectServiceAddress(Arrays.asList(instance(0), instance(0)), request("a")), name);
+            assertNull(loadBalance.selectServiceAddress(Arrays.asList(instance(0)), request("a")), name);
+        }
+    }
+
+    @Test
+    void consistentHashIsStickyAndBalanced() {
+        List<ServiceInstance> instances = Arrays.asList(instance(100), instance(100), instance(100), instance(100));
+        LoadBalance loadBalance = loadBalance("consistenthash");
+        ServiceInstance first = loadBalance.selectServiceAddress(instances, request("user-1"));
+        for (int i = 0; i < 10; i++) {
+            assertSame(first, loadBalance.selectServiceAddress(instances, request("user-1")));
+        }
+        Map<ServiceInstance, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 40000; i++) {
+            counts.merge(loadBalance.selectServiceAddress(instances, request("user-" + i)), 1, Integer::sum);
+        }
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            assertEquals(10000, count, 2000);
+        }
+    }
+
+    @Test
+    void leastActivePicksTheIdleInstance() {
+        List<ServiceInstance> instances = Arrays.asList(instance(100), instance(100), instance(100));
+        EndpointStats.of(instances.get(0).getAddress()).begin();
+        EndpointStats.of(instances.get(1).getAddress()).begin();
+        EndpointStats.of(instances.get(1).getAddress()).begin();
+        for (int i = 0; i < 20; i++) {
+            assertSame(instances.get(2), loadBalance("leastactive").selectServiceAddress(instances, request("a")));
+        }
+    }
+
+    @Test
+    void peakEwmaAndP2cAvoidTheSlowInstance() {
+        List<ServiceInstance> instances = Arrays.asList(instance(100), instance(100));
+        complete(instances.get(0), TimeUnit.MILLISECONDS.toNanos(200));
+        complete(instances.get(1), TimeUnit.MILLISECONDS.toNanos(1));
+        for (int i = 0; i < 20; i++) {
+            assertSame(instances.get(1), loadBalance("peakewma").selectServiceAddress(instances, request("a")));
+            // 只有两个实例时 p2c 总是比较这两个
+            assertSame(instances.get(1), loadBalance("p2c").selectServiceAddress(instances, request("a")));
+        }
+    }
+
+    @Test
+    void p2cComparesTwoDifferentInstances() {
+        List<ServiceInstance> instances = Arrays.asList(instance(100), instance(100), instance(100));
+        // 最慢的实例只有和自己比较时才可能被选中
+        complete(instances.get(0), TimeUnit.SECONDS.toNanos(1));
+        complete(instances.get(1), TimeUnit.MILLISECONDS.toNanos(1));
+        complete(instances.get(2), TimeUnit.MILLISECONDS.toNanos(1));
+        for (int i = 0; i < 1000; i++) {
+            assertNotEquals(instances.get(0), loadBalance("p2c").selectServiceAddress(instances, request("a")));
+        }
+    }
+
+    @Test
+    void connectFailuresDivertTrafficFromAnUnreachableInstance() {
+        List<ServiceInstance> instances = Arrays.asList(instance(100), instance(100), instance(100));
+        // 连不上的地址没有在途请求，另外两个各有一个在途请求，只看活跃数和初始响应时间时它最空闲
+        EndpointStats.of(instances.get(1).getAddress()).begin();
+        EndpointStats.of(instances.get(2).getAddress()).begin();
+        EndpointStats unreachable = EndpointStats.of(instances.get(0).getAddress());
+        // 一次连接失败就按惩罚值计入响应时间
+        unreachable.recordConnectFailure();
+        for (int i = 0; i < 100; i++) {
+            assertNotEquals(instances.get(0), loadBalance("peakewma").selectServiceAddress(instances, request("a")));
+            assertNotEquals(instances.get(0), loadBalance("p2c").selectServiceAddress(instances, request("a")));
+        }
+        // 连续失败后不健康，活跃数最少也不会被选中
+        unreachable.recordConnectFailure();
+        unreachable.recordConnectFailure();
+        for (int i = 0; i < 100; i++) {
+            for (String name : Arrays.asList("leastactive", "peakewma", "p2c")) {
+                assertNotEquals(instances.get(0), loadBalance(name).selectServiceAddress(instances, request("a")));
+            }
+        }
+        // 全都不健康时仍然选出一个地址
+        List<ServiceInstance> allUnreachable = Arrays.asList(instances.get(0), instance(100));
+        for (int i = 0; i < 3; i++) {
+            EndpointStats.of(allUnreachable.get(1).getAddress()).recordConnectFailure();
+        }
+        for (String name : Arrays.asList("leastactive", "peakewma", "p2c")) {
+            assertTrue(allUnreachable.contains(loadBalance(name).selectServiceAddress(allUnreachable, request("a"))));
+        }
+    }
+
+    static ServiceInstance instance(int weight) {
+        return ServiceInstance.builder().address("127.0.0.1:" + PORT.incrementAndGet()).weight(weight).build();
+    }
+
+    static RpcRequest request(Object argument) {
+        return RpcRequest.builder().interfaceName("HelloService").methodName("hello")
+                .parameters(new Object[]{argument}).version("1").group("test").build();
+    }
+
+    static LoadBalance loadBalance(String name) {
+        return ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtension(name);
+    }
+
+    private static Map<ServiceInstance, Integer> count(LoadBalance loadBalance, List<ServiceInstance> instances, int times) {
+        Map<ServiceInstance, Integer> counts = new HashMap<>();
+        for (int i = 0; i < times; i++) {
+            counts.merge(loadBalance.selectServiceAddress(instances, request(i)), 1, Integer::sum);
+        }
+        assertTrue(instances.containsAll(counts.keySet()));
+        return counts;
+    }
+
+    private static void complete(ServiceInstance serviceInstance, long rttNanos) {
+        EndpointStats stats = EndpointStats.of(serviceInstance.getAddress());
+        stats.begin();
+        stats.end(rttNanos, true);
+    }
+}
@@ -0,0 +1,78 @@
+package proxy;
+
+import entity.RpcServiceProperties;
+import exception.RpcException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JDK 代理和字节码 stub 对同一个失败抛出相同的异常。
+ * 传输层不是 netty 时调用立即失败，不需要服务端
+ * @author Chen
+ * @create 2026-10-17 23:45
+ */
+class RpcClientProxyTest {
+
+    public interface EchoService {
+        String echo(String message);
+
+        CompletableFuture<String> echoAsync(String message);
+    }
+
+    interface HiddenService {
+        String hello();
+    }
+
+    private final RpcClientProxy rpcClientProxy = new RpcClientProxy(rpcRequest -> null,
+            RpcServiceProperties.builder().build());
+
+    @Test
+    void bothProxyTypesThrowTheSameException() {
+        EchoService jdk = rpcClientProxy.getProxy(EchoService.class, RpcClientProxy.PROXY_JDK);
+        EchoService stub = rpcClientProxy.getProxy(EchoService.class, RpcClientProxy.PROXY_BYTEBUDDY);
+        RpcException jdkException = assertThrows(RpcException.class, () -> jdk.echo("a"));
+        RpcException stubException = assertThrows(RpcException.class, () -> stub.echo("a"));
+        assertEquals(jdkException.getMessage(), stubException.getMessage());
+    }
+
+    @Test
+    void asyncMethodsFailThroughTheFuture() {
+        EchoService stub = rpcClientProxy.getProxy(EchoService.class, RpcClientProxy.PROXY_BYTEBUDDY);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> stub.echoAsync("a").get());
+        assertTrue(e.getCause() instanceof RpcException);
+    }
+
+    @Test
+    void stubObjectMethodsRunLocally() {
+        EchoService stub = rpcClientProxy.getProxy(EchoService.class, RpcClientProxy.PROXY_BYTEBUDDY);
+        assertEquals(stub, stub);
+        assertTrue(stub.toString().contains("RpcStub"));
+    }
+
+    @Test
+    void jdkProxyObjectMethodsRunLocally() {
+        EchoService jdk = rpcClientProxy.getProxy(EchoService.class, RpcClientProxy.PROXY_JDK);
+        EchoService other = rpcClientProxy.getProxy(EchoService.class, RpcClientProxy.PROXY_JDK);
+        // 传输层会让远程调用立即失败，这几个方法不抛异常说明没有发起远程调用
+        assertEquals(jdk, jdk);
+        assertNotEquals(jdk, other);
+        assertEquals(System.identityHashCode(jdk), jdk.hashCode());
+        assertTrue(jdk.toString().contains("@"));
+    }
+
+    @Test
+    void stubsForPackagePrivateInterfaces() {
+        HiddenService first = rpcClientProxy.getStub(HiddenService.class);
+        HiddenService second = rpcClientProxy.getStub(HiddenService.class);
+        assertNotSame(first.getClass(), second.getClass());
+        assertThrows(RpcException.class, first::hello);
+    }
+}
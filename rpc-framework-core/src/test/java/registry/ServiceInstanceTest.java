@@ -0,0 +1,47 @@
+package registry;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Chen
+ * @create 2026-10-18 01:10
+ */
+class ServiceInstanceTest {
+
+    @Test
+    void addressIsNotResolvedWhenBuilt() {
+        // 不存在的域名也不会在创建实例时解析，而是留给建立连接时
+        ServiceInstance serviceInstance = ServiceInstance.parse("rpc-provider.invalid:9998", null);
+        InetSocketAddress inetSocketAddress = serviceInstance.getInetSocketAddress();
+        assertTrue(inetSocketAddress.isUnresolved());
+        assertEquals("rpc-provider.invalid:9998", ServiceInstance.toAddress(inetSocketAddress));
+    }
+
+    @Test
+    void resolvedAndUnresolvedAddressesShareTheKey() {
+        InetSocketAddress unresolved = ServiceInstance.parse("127.0.0.1:9998", null).getInetSocketAddress();
+        assertEquals(ServiceInstance.toAddress(new InetSocketAddress("127.0.0.1", 9998)), ServiceInstance.toAddress(unresolved));
+    }
+
+    @Test
+    void metadataRoundTrip() {
+        ServiceInstance serviceInstance = ServiceInstance.builder().address("127.0.0.1:9998").weight(50)
+                .timestamp(1000).warmup(2000).capacity(300).zone("a").build();
+        ServiceInstance parsed = ServiceInstance.parse("127.0.0.1:9998", serviceInstance.toData());
+        assertEquals(50, parsed.getWeight());
+        assertEquals(2000, parsed.getWarmup());
+        assertEquals(300, parsed.getCapacity());
+        assertEquals("a", parsed.getZone());
+        // 不认识的 key 忽略，缺少的 key 使用默认值
+        ServiceInstance unknown = ServiceInstance.parse("127.0.0.1:9998", "color=red\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals(ServiceInstance.DEFAULT_WEIGHT, unknown.getWeight());
+        assertNull(unknown.getZone());
+    }
+}
@@ -0,0 +1,153 @@
+package remoting.transport.netty.client;
+
+import enums.RpcErrorMessageEnum;
+import exception.RpcException;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 在途窗口的排队和 AIMD 调整，使用默认配置：初始窗口 32，上限 1024，队列 1024
+ * @author Chen
+ * @create 2026-10-17 23:20
+ */
+class InFlightWindowTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final Runnable NOOP = () -> { };
+    private static final Consumer<Throwable> IGNORE = cause -> { };
+
+    @Test
+    void requestsBeyondTheWindowWaitForARelease() {
+        InFlightWindow window = new InFlightWindow();
+        AtomicInteger sent = new AtomicInteger();
+        for (int i = 0; i < 40; i++) {
+            assertTrue(window.acquire(sent::incrementAndGet, IGNORE));
+        }
+        assertEquals(32, sent.get());
+        assertEquals(32, window.getInFlight());
+        assertEquals(8, window.getQueued());
+
+        window.release(RTT, false, null);
+        assertEquals(33, sent.get());
+        assertEquals(7, window.getQueued());
+    }
+
+    @Test
+    void fullQueueRejects() {
+        InFlightWindow window = new InFlightWindow();
+        for (int i = 0; i < 32 + 1024; i++) {
+            assertTrue(window.acquire(NOOP, IGNORE));
+        }
+        assertFalse(window.acquire(NOOP, IGNORE));
+    }
+
+    @Test
+    void dropHalvesTheWindowOncePerRtt() throws InterruptedException {
+        InFlightWindow window = new InFlightWindow();
+        long rtt = TimeUnit.MILLISECONDS.toNanos(200);
+        fill(window, 32);
+        window.release(rtt, false, null);
+        // 距窗口创建超过一个最小 RTT 之后，丢包才会减小窗口
+        Thread.sleep(250);
+        window.release(0, true, null);
+        assertEquals(16, window.getLimit());
+        // 同一个 RTT 内的第二次丢包不再减小
+        window.release(0, true, null);
+        assertEquals(16, window.getLimit());
+    }
+
+    @Test
+    void busyWindowGrowsAndServerCapacityCapsIt() {
+        InFlightWindow window = new InFlightWindow();
+        fill(window, 32);
+        // 窗口一直被占满，每个响应加 1/limit，两个窗口的响应之后大约加 2
+        for (int i = 0; i < 64; i++) {
+            window.release(RTT, false, null);
+            window.acquire(NOOP, IGNORE);
+        }
+        assertTrue(window.getLimit() >= 33, "limit " + window.getLimit());
+
+        // 服务端通告已经没有空闲容量时窗口收紧到当前的在途数 + 1
+        window.release(RTT, false, 0);
+        assertEquals(window.getInFlight() + 1, window.getLimit());
+    }
+
+    @Test
+    void inflatedRttShrinksTheWindow() throws InterruptedException {
+        InFlightWindow window = new InFlightWindow();
+        fill(window, 32);
+        window.release(RTT, false, null);
+        Thread.sleep(20);
+        // 超过最小 RTT 的 2 倍
+        window.release(RTT * 10, false, null);
+        assertEquals((int) (32 * 0.9), window.getLimit());
+    }
+
+    @Test
+    void abortFailsQueuedRequestsInsteadOfDispatchingThem() {
+        InFlightWindow window = new InFlightWindow();
+        AtomicInteger sent = new AtomicInteger();
+        List<Throwable> aborted = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            window.acquire(sent::incrementAndGet, aborted::add);
+        }
+        IllegalStateException cause = new IllegalStateException("channel closed");
+        window.abort(cause);
+        assertEquals(8, aborted.size());
+        assertEquals(0, window.getQueued());
+        // 在途请求随后失败，释放的位置不会再派发任何请求
+        for (int i = 0; i < 32; i++) {
+            window.release(0, true, null);
+        }
+        assertEquals(32, sent.get());
+        // 关闭之后的请求直接失败
+        window.acquire(sent::incrementAndGet, aborted::add);
+        assertEquals(32, sent.get());
+        assertEquals(9, aborted.size());
+        assertSame(cause, aborted.get(8));
+    }
+
+    @Test
+    void queuedRequestsExpireAtTheDeadline() throws Exception {
+        InFlightWindow window = new InFlightWindow();
+        fill(window, 32);
+        AtomicInteger sent = new AtomicInteger();
+        CompletableFuture<Throwable> expired = new CompletableFuture<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+        assertTrue(window.acquire(sent::incrementAndGet, expired::complete, deadline));
+        assertEquals(1, window.getQueued());
+        // 窗口一直没有空位，排队的请求在截止时间失败，不必等到有请求完成
+        Throwable cause = expired.get(5, TimeUnit.SECONDS);
+        assertTrue(cause instanceof RpcException);
+        assertTrue(cause.getMessage().startsWith(RpcErrorMessageEnum.REQUEST_TIMEOUT.getMessage()));
+        assertEquals(0, window.getQueued());
+        // 之后空出的位置不会再派发已经超时的请求
+        window.release(RTT, false, null);
+        assertEquals(0, sent.get());
+    }
+
+    @Test
+    void eachChannelHasOneWindow() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        assertSame(InFlightWindow.of(channel), InFlightWindow.of(channel));
+        channel.finishAndReleaseAll();
+    }
+
+    private static void fill(InFlightWindow window, int n) {
+        for (int i = 0; i < n; i++) {
+            window.acquire(NOOP, IGNORE);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package remoting.transport.netty.client;
+
+import enums.RpcErrorMessageEnum;
+import exception.RpcException;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import remoting.dto.RpcResponse;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Chen
+ * @create 2026-10-17 23:25
+ */
+class UnprocessedRequestsTest {
+
+    // 请求表是静态的，每个用例使用不同的 requestId
+    private static final AtomicLong REQUEST_ID = new AtomicLong(System.nanoTime());
+
+    private final UnprocessedRequests unprocessedRequests = new UnprocessedRequests();
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+
+    @AfterEach
+    void close() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void requestExpiresAfterItsTimeout() throws Exception {
+        long requestId = REQUEST_ID.incrementAndGet();
+        CompletableFuture<RpcResponse<Object>> future = new CompletableFuture<>();
+        long start = System.nanoTime();
+        unprocessedRequests.put(requestId, future, channel, 50);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(2, TimeUnit.SECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis >= 50, "expired after " + elapsedMillis + "ms");
+        RpcException cause = (RpcException) e.getCause();
+        assertTrue(cause.getMessage().contains(RpcErrorMessageEnum.REQUEST_TIMEOUT.getMessage()));
+        assertEquals(1, unprocessedRequests.getTimedOutCount());
+        assertEquals(0, unprocessedRequests.getInFlightCount());
+        assertEquals(0, unprocessedRequests.getPendingCount(channel));
+    }
+
+    @Test
+    void responseCancelsTheTimeout() throws Exception {
+        long requestId = REQUEST_ID.incrementAndGet();
+        CompletableFuture<RpcResponse<Object>> future = new CompletableFuture<>();
+        unprocessedRequests.put(requestId, future, channel, 50);
+        assertEquals(1, unprocessedRequests.getPendingCount(channel));
+
+        RpcResponse<Object> response = RpcResponse.success("ok", null);
+        unprocessedRequests.complete(requestId, response);
+        assertSame(response, future.get());
+        Thread.sleep(100);
+        assertEquals(0, unprocessedRequests.getTimedOutCount());
+        assertEquals(0, unprocessedRequests.getInFlightCount());
+    }
+
+    @Test
+    void closingTheChannelFailsItsRequests() {
+        CompletableFuture<RpcResponse<Object>> first = new CompletableFuture<>();
+        CompletableFuture<RpcResponse<Object>> second = new CompletableFuture<>();
+        unprocessedRequests.put(REQUEST_ID.incrementAndGet(), first, channel, 0);
+        unprocessedRequests.put(REQUEST_ID.incrementAndGet(), second, channel, 0);
+
+        IOException cause = new IOException("closed");
+        unprocessedRequests.failAll(channel, cause);
+        for (CompletableFuture<RpcResponse<Object>> future : new CompletableFuture[]{first, second}) {
+            ExecutionException e = assertThrows(ExecutionException.class, future::get);
+            assertSame(cause, e.getCause());
+        }
+        assertEquals(0, unprocessedRequests.getPendingCount(channel));
+    }
+}
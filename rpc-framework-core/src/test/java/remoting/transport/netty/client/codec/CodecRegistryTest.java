@@ -0,0 +1,57 @@
+package remoting.transport.netty.client.codec;
+
+import compress.Compress;
+import enums.CompressTypeEnum;
+import enums.SerializationTypeEnum;
+import exception.RpcException;
+import org.junit.jupiter.api.Test;
+import serialize.Serializer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Chen
+ * @create 2026-10-17 23:15
+ */
+class CodecRegistryTest {
+
+    @Test
+    void everySerializationTypeHasASerializer() {
+        for (SerializationTypeEnum type : SerializationTypeEnum.values()) {
+            Serializer serializer = CodecRegistry.getSerializer(type.getCode());
+            assertNotNull(serializer, type.getName());
+            // 同一个类型每次取到的是同一个实例
+            assertSame(serializer, CodecRegistry.getSerializer(type.getCode()));
+        }
+    }
+
+    @Test
+    void everyCompressTypeRoundTrips() {
+        byte[] data = "chen-rpc chen-rpc chen-rpc chen-rpc".getBytes();
+        for (CompressTypeEnum type : CompressTypeEnum.values()) {
+            if (type == CompressTypeEnum.NONE) {
+                continue;
+            }
+            Compress compress = CodecRegistry.getCompress(type.getCode());
+            assertArrayEquals(data, compress.decompress(compress.compress(data)), type.getName());
+        }
+    }
+
+    @Test
+    void unknownCodesAreRejected() {
+        assertThrows(RpcException.class, () -> CodecRegistry.getSerializer((byte) 0x7F));
+        assertThrows(RpcException.class, () -> CodecRegistry.getCompress((byte) 0x7F));
+        // NONE 不需要压缩器，编解码器遇到它直接跳过
+        assertThrows(RpcException.class, () -> CodecRegistry.getCompress(CompressTypeEnum.NONE.getCode()));
+    }
+
+    @Test
+    void defaultsAreUsableWithoutConfig() {
+        assertEquals(SerializationTypeEnum.PROTOSTUFF.getCode(), CodecRegistry.getDefaultSerializer());
+        assertEquals(CompressTypeEnum.GZIP.getCode(), CodecRegistry.getDefaultCompress());
+    }
+}
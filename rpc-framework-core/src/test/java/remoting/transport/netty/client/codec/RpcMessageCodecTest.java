@@ -0,0 +1,133 @@
+package remoting.transport.netty.client.codec;
+
+import enums.CompressTypeEnum;
+import enums.SerializationTypeEnum;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+import remoting.constants.RpcConstants;
+import remoting.dto.RpcMessage;
+import remoting.dto.RpcRequest;
+import remoting.dto.RpcResponse;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 编码后再解码，每种序列化方式和压缩方式得到的消息都与原消息相同
+ * @author Chen
+ * @create 2026-10-17 23:10
+ */
+class RpcMessageCodecTest {
+
+    // 超过默认的压缩阈值 1KB，并且重复度高，压缩后一定更小
+    private static final String LARGE_TEXT = repeat("hello chen-rpc ", 200);
+
+    @Test
+    void roundTripRequestWithEverySerializerAndCompress() {
+        for (SerializationTypeEnum codec : SerializationTypeEnum.values()) {
+            for (CompressTypeEnum compress : CompressTypeEnum.values()) {
+                RpcMessage decoded = roundTrip(RpcMessage.builder()
+                        .messageType(RpcConstants.REQUEST_TYPE)
+                        .codec(codec.getCode())
+                        .compress(compress.getCode())
+                        .requestId(Long.MAX_VALUE - 1)
+                        .data(request(LARGE_TEXT)).build(), compress.getCode());
+                String context = codec.getName() + "/" + compress.getName();
+                assertEquals(Long.MAX_VALUE - 1, decoded.getRequestId(), context);
+                assertEquals(codec.getCode(), decoded.getCodec(), context);
+                assertEquals(compress.getCode(), decoded.getCompress(), context);
+                RpcRequest rpcRequest = (RpcRequest) decoded.getData();
+                assertEquals("HelloService", rpcRequest.getInterfaceName(), context);
+                assertEquals("hello", rpcRequest.getMethodName(), context);
+                assertArrayEquals(new Object[]{LARGE_TEXT, 7}, rpcRequest.getParameters(), context);
+                assertArrayEquals(new Class<?>[]{String.class, Integer.class}, rpcRequest.getParamTypes(), context);
+                assertEquals(1500, rpcRequest.getTimeout(), context);
+            }
+        }
+    }
+
+    @Test
+    void roundTripResponseWithEverySerializer() {
+        for (SerializationTypeEnum codec : SerializationTypeEnum.values()) {
+            RpcResponse<Object> response = RpcResponse.success(LARGE_TEXT, null);
+            response.setCapacity(12);
+            RpcMessage decoded = roundTrip(RpcMessage.builder()
+                    .messageType(RpcConstants.RESPONSE_TYPE)
+                    .codec(codec.getCode())
+                    .compress(CompressTypeEnum.GZIP.getCode())
+                    .requestId(42)
+                    .data(response).build(), CompressTypeEnum.GZIP.getCode());
+            RpcResponse<?> rpcResponse = (RpcResponse<?>) decoded.getData();
+            assertEquals(LARGE_TEXT, rpcResponse.getData(), codec.getName());
+            assertEquals(Integer.valueOf(12), rpcResponse.getCapacity(), codec.getName());
+            assertEquals(response.getCode(), rpcResponse.getCode(), codec.getName());
+        }
+    }
+
+    @Test
+    void smallBodyIsSentUncompressed() {
+        RpcMessage decoded = roundTrip(RpcMessage.builder()
+                .messageType(RpcConstants.REQUEST_TYPE)
+                .codec(SerializationTypeEnum.PROTOSTUFF.getCode())
+                .compress(CompressTypeEnum.GZIP.getCode())
+                .requestId(1)
+                .data(request("small")).build(), CompressTypeEnum.NONE.getCode());
+        assertEquals("small", ((RpcRequest) decoded.getData()).getParameters()[0]);
+    }
+
+    @Test
+    void roundTripVersion1Heartbeat() {
+        EmbeddedChannel channel = new EmbeddedChannel(new RpcMessageEncoder(), new RpcMessageDecoder());
+        channel.writeOutbound(RpcMessage.builder()
+                .version(RpcConstants.VERSION_1)
+                .messageType(RpcConstants.HEARTBEAT_REQUEST_TYPE)
+                .codec(SerializationTypeEnum.PROTOSTUFF.getCode())
+                .requestId(9).build());
+        ByteBuf encoded = channel.readOutbound();
+        assertEquals(RpcConstants.HEAD_LENGTH, encoded.readableBytes());
+        channel.writeInbound(encoded);
+        RpcMessage decoded = channel.readInbound();
+        assertEquals(RpcConstants.VERSION_1, decoded.getVersion());
+        assertEquals(9, decoded.getRequestId());
+        assertEquals(RpcConstants.PING, decoded.getData());
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * 编码、检查 header 中实际使用的压缩类型，再解码
+     */
+    private static RpcMessage roundTrip(RpcMessage rpcMessage, byte expectedCompress) {
+        EmbeddedChannel channel = new EmbeddedChannel(new RpcMessageEncoder(), new RpcMessageDecoder());
+        try {
+            assertTrue(channel.writeOutbound(rpcMessage));
+            ByteBuf encoded = channel.readOutbound();
+            assertEquals(encoded.readableBytes(), encoded.getInt(RpcConstants.MAGIC_NUMBER.length + 1));
+            assertEquals(expectedCompress, encoded.getByte(11));
+            assertTrue(channel.writeInbound(encoded));
+            return channel.readInbound();
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private static RpcRequest request(String text) {
+        return RpcRequest.builder()
+                .interfaceName("HelloService")
+                .methodName("hello")
+                .parameters(new Object[]{text, 7})
+                .paramTypes(new Class<?>[]{String.class, Integer.class})
+                .timeout(1500).build();
+    }
+
+    private static String repeat(String s, int times) {
+        char[] chars = new char[s.length() * times];
+        for (int i = 0; i < times; i++) {
+            s.getChars(0, s.length(), chars, i * s.length());
+        }
+        return new String(chars);
+    }
+}
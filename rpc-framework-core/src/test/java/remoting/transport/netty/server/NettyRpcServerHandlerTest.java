@@ -0,0 +1,58 @@
+package remoting.transport.netty.server;
+
+import enums.RpcResponseCodeEnum;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.timeout.IdleStateEvent;
+import org.junit.jupiter.api.Test;
+import remoting.constants.RpcConstants;
+import remoting.dto.RpcMessage;
+import remoting.dto.RpcRequest;
+import remoting.dto.RpcResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Chen
+ * @create 2026-10-18 10:50
+ */
+class NettyRpcServerHandlerTest {
+
+    @Test
+    void unknownServiceFailsOnlyThatRequest() {
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyRpcServerHandler());
+        channel.writeInbound(request(1, RpcRequest.builder().interfaceName("NoSuchService").methodName("hello")
+                .paramTypes(new Class<?>[0]).parameters(new Object[0]).version("1").group("test").build()));
+        assertEquals(RpcResponseCodeEnum.SERVICE_CAN_NOT_BE_FOUND.getCode(), response(channel).getCode());
+        // 未知的 methodId 仍然让客户端改用完整形式重发
+        channel.writeInbound(request(2, RpcRequest.builder().methodId(Integer.MAX_VALUE).parameters(new Object[0]).build()));
+        assertEquals(RpcResponseCodeEnum.UNKNOWN_METHOD_ID.getCode(), response(channel).getCode());
+        assertTrue(channel.isActive());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void pausedConnectionIsNotClosedAsIdle() {
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyRpcServerHandler());
+        channel.config().setAutoRead(false);
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT);
+        assertTrue(channel.isOpen());
+        channel.config().setAutoRead(true);
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.READER_IDLE_STATE_EVENT);
+        assertFalse(channel.isOpen());
+    }
+
+    static RpcMessage request(long requestId, RpcRequest rpcRequest) {
+        RpcMessage rpcMessage = new RpcMessage();
+        rpcMessage.setMessageType(RpcConstants.REQUEST_TYPE);
+        rpcMessage.setRequestId(requestId);
+        rpcMessage.setData(rpcRequest);
+        return rpcMessage;
+    }
+
+    static RpcResponse<?> response(EmbeddedChannel channel) {
+        RpcMessage rpcMessage = channel.readOutbound();
+        return (RpcResponse<?>) rpcMessage.getData();
+    }
+}
@@ -0,0 +1,37 @@
+package remoting.transport.netty.server;
+
+import org.junit.jupiter.api.Test;
+import provider.ServiceMethod;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Chen
+ * @create 2026-10-18 11:10
+ */
+class RequestDispatcherTest {
+
+    @Test
+    void asyncServicesHoldCapacityUntilTheyComplete() throws Exception {
+        RequestDispatcher requestDispatcher = new RequestDispatcher();
+        ServiceMethod serviceMethod = new ServiceMethod(1, "AsyncService", new Object(), Object.class.getMethod("toString"));
+        int capacity = requestDispatcher.remainingCapacity(serviceMethod);
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        CountDownLatch invoked = new CountDownLatch(1);
+        requestDispatcher.dispatch(serviceMethod, () -> {
+            invoked.countDown();
+            return result;
+        }, () -> { });
+        assertTrue(invoked.await(5, TimeUnit.SECONDS));
+        // 任务已经返回，但异步结果还没有完成
+        Thread.sleep(50);
+        assertEquals(capacity - 1, requestDispatcher.remainingCapacity(serviceMethod));
+        result.complete("done");
+        assertEquals(capacity, requestDispatcher.remainingCapacity(serviceMethod));
+    }
+}
@@ -0,0 +1,149 @@
+package remoting.transport.netty.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 限制器本身与虚拟线程无关，用每个任务一个平台线程的执行器模拟 newVirtualThreadPerTaskExecutor
+ * @author Chen
+ * @create 2026-10-17 23:40
+ */
+class VirtualThreadLimiterTest {
+
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+    private final Executor threadPerTask = command -> {
+        Thread thread = new Thread(command);
+        threads.add(thread);
+        thread.start();
+    };
+
+    @AfterEach
+    void stopThreads() throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.interrupt();
+            thread.join(1000);
+        }
+    }
+
+    @Test
+    void burstOfTwentyRunsFourAndQueuesTen() throws InterruptedException {
+        VirtualThreadLimiter limiter = new VirtualThreadLimiter(4, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(14);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        int rejected = 0;
+        for (int i = 0; i < 20; i++) {
+            try {
+                limiter.execute(threadPerTask, () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    finished.countDown();
+                    return null;
+                }, () -> { });
+            } catch (RejectedExecutionException e) {
+                rejected++;
+            }
+        }
+        assertEquals(6, rejected);
+        assertEquals(0, limiter.availableCapacity());
+        // 等 4 个任务开始执行，其余 10 个应当在等待
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (running.get() < 4 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(50);
+        assertEquals(4, running.get());
+
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(4, maxRunning.get());
+        awaitCapacity(limiter, 14);
+    }
+
+    @Test
+    void asyncTaskHoldsItsPermitsUntilItCompletes() throws InterruptedException {
+        VirtualThreadLimiter limiter = new VirtualThreadLimiter(1, 0);
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        CountDownLatch returned = new CountDownLatch(1);
+        limiter.execute(threadPerTask, () -> {
+            returned.countDown();
+            return result;
+        }, () -> { });
+        assertTrue(returned.await(5, TimeUnit.SECONDS));
+        // 任务已经返回，但异步结果还没有完成，名额仍被占用
+        Thread.sleep(50);
+        assertEquals(0, limiter.availableCapacity());
+        assertThrows(RejectedExecutionException.class, () -> limiter.execute(threadPerTask, () -> null, () -> { }));
+
+        result.complete("done");
+        awaitCapacity(limiter, 1);
+    }
+
+    @Test
+    void failingTaskReleasesItsPermits() throws InterruptedException {
+        VirtualThreadLimiter limiter = new VirtualThreadLimiter(1, 0);
+        limiter.execute(threadPerTask, () -> {
+            throw new IllegalStateException("boom");
+        }, () -> { });
+        awaitCapacity(limiter, 1);
+    }
+
+    @Test
+    void interruptedWaiterIsReported() throws InterruptedException {
+        VirtualThreadLimiter limiter = new VirtualThreadLimiter(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        limiter.execute(threadPerTask, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }, () -> { });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicInteger executed = new AtomicInteger();
+        limiter.execute(threadPerTask, () -> {
+            executed.incrementAndGet();
+            return null;
+        }, interrupted::countDown);
+        threads.get(1).interrupt();
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(0, executed.get());
+        // 被中断的请求归还了接收名额，只剩正在执行的一个
+        assertEquals(1, limiter.availableCapacity());
+
+        release.countDown();
+        awaitCapacity(limiter, 2);
+    }
+
+    private static void awaitCapacity(VirtualThreadLimiter limiter, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.availableCapacity() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(expected, limiter.availableCapacity());
+    }
+}
@@ -0,0 +1,61 @@
+package spring;
+
+import entity.RpcServiceProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import proxy.RpcClientProxy;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Chen
+ * @create 2026-10-17 23:50
+ */
+class SpringBeanPostProcessorTest {
+
+    private Object helloService;
+
+    private final RpcClientProxy rpcClientProxy = new RpcClientProxy(rpcRequest -> null, RpcServiceProperties.builder().build());
+
+    @Test
+    void validMethodTimeoutIsAccepted() throws NoSuchFieldException {
+        Field field = getClass().getDeclaredField("helloService");
+        assertDoesNotThrow(() -> SpringBeanPostProcessor.setMethodTimeout(rpcClientProxy, " hello = 200 ", field));
+        assertDoesNotThrow(() -> SpringBeanPostProcessor.setMethodTimeout(rpcClientProxy, "hello=0", field));
+    }
+
+    @Test
+    void malformedMethodTimeoutNamesTheFieldAndEntry() throws NoSuchFieldException {
+        Field field = getClass().getDeclaredField("helloService");
+        for (String entry : new String[]{"hello", "hello=abc", "=100", "hello=-1", "hello="}) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> SpringBeanPostProcessor.setMethodTimeout(rpcClientProxy, entry, field));
+            assertTrue(e.getMessage().contains("[" + entry + "]"), e.getMessage());
+            assertTrue(e.getMessage().contains("SpringBeanPostProcessorTest.helloService"), e.getMessage());
+        }
+    }
+
+    @Test
+    void callbackExecutorIsResolvedByName() throws NoSuchFieldException {
+        Field field = getClass().getDeclaredField("helloService");
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        Executor executor = Runnable::run;
+        beanFactory.registerSingleton("callbacks", executor);
+        assertSame(executor, SpringBeanPostProcessor.callbackExecutor("callbacks", beanFactory, field));
+        assertNull(SpringBeanPostProcessor.callbackExecutor("direct", beanFactory, field));
+        // 默认使用共用的回调线程池，不在 IO 线程上执行回调
+        assertNotNull(SpringBeanPostProcessor.callbackExecutor("", beanFactory, field));
+        assertSame(RpcClientProxy.callbackExecutor("shared"), SpringBeanPostProcessor.callbackExecutor("", null, field));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> SpringBeanPostProcessor.callbackExecutor("missing", beanFactory, field));
+        assertTrue(e.getMessage().contains("[missing]") && e.getMessage().contains("helloService"), e.getMessage());
+    }
+}